@@ -4,6 +4,7 @@ plugins {
     id("java")
     id("org.springframework.boot") version "3.2.3"
     id("io.spring.dependency-management") version "1.1.4"
+    id("me.champeau.jmh") version "0.7.2"
     jacoco
 }
 
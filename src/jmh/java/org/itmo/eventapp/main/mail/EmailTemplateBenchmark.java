@@ -0,0 +1,66 @@
+package org.itmo.eventapp.main.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность рендеринга письма о новой задаче:
+ * чтение шаблона и String.replace на каждое поле против заранее разобранного EmailTemplate.
+ * Запуск: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailTemplateBenchmark {
+    private static final String TEMPLATE_PATH = "notification/email-templates/incoming-task-template.html";
+
+    private final Map<String, String> fields = Map.of(
+        "userName", "Иван",
+        "eventName", "День первокурсника",
+        "taskName", "Провести инструктаж",
+        "taskLink", "http://localhost:5137/tasks/42");
+
+    private EmailTemplate template;
+
+    @Setup
+    public void setUp() throws IOException {
+        template = new EmailTemplateRegistry().get("incoming-task-template");
+    }
+
+    @Benchmark
+    public String readAndReplace() throws IOException {
+        String content;
+        try (Reader reader = new InputStreamReader(new ClassPathResource(TEMPLATE_PATH).getInputStream(), StandardCharsets.UTF_8)) {
+            content = FileCopyUtils.copyToString(reader);
+        }
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            content = content.replace("${" + field.getKey() + "}", field.getValue());
+        }
+        return content;
+    }
+
+    @Benchmark
+    public String precompiledRender() {
+        return template.render(fields);
+    }
+}
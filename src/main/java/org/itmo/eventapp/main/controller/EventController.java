@@ -16,6 +16,7 @@ import org.itmo.eventapp.main.model.dto.request.CreateEventRequest;
 import org.itmo.eventapp.main.model.dto.request.EditEventRequest;
 import org.itmo.eventapp.main.model.dto.request.EventRequest;
 import org.itmo.eventapp.main.model.dto.response.EventResponse;
+import org.itmo.eventapp.main.model.dto.response.FileUploadIntentResponse;
 import org.itmo.eventapp.main.model.dto.response.PaginatedResponse;
 import org.itmo.eventapp.main.model.dto.response.UserRoleResponse;
 import org.itmo.eventapp.main.model.entity.Event;
@@ -24,6 +25,7 @@ import org.itmo.eventapp.main.model.entity.enums.EventFormat;
 import org.itmo.eventapp.main.model.entity.enums.EventStatus;
 import org.itmo.eventapp.main.model.mapper.EventMapper;
 import org.itmo.eventapp.main.model.mapper.EventRoleMapper;
+import org.itmo.eventapp.main.service.EventImageService;
 import org.itmo.eventapp.main.service.EventService;
 import org.itmo.eventapp.main.service.TaskService;
 import org.springframework.format.annotation.DateTimeFormat;
@@ -36,6 +38,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 
 @RequiredArgsConstructor
@@ -45,6 +48,7 @@ import java.util.List;
 public class EventController {
     private final EventService eventService;
     private final TaskService taskService;
+    private final EventImageService eventImageService;
 
     @Operation(summary = "Создание активности мероприятия")
     @PreAuthorize("@eventSecurityExpression.canCreateActivity(#eventRequest.parent)")
@@ -77,7 +81,32 @@ public class EventController {
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<EventResponse> updateEvent(@Min(1) @PathVariable("id") @Parameter(name = "id", description = "ID мероприятия", example = "1") Integer id,
                                                      @Valid EditEventRequest eventRequest) {
-        return ResponseEntity.ok().body(EventMapper.eventToEventResponse(eventService.updateEvent(id, eventRequest)));
+        Event updatedEvent = eventService.updateEvent(id, eventRequest);
+        return ResponseEntity.ok().body(EventMapper.eventToEventResponse(updatedEvent, eventImageService.getVariantUrls(updatedEvent.getId())));
+    }
+
+    @Operation(summary = "Получение ссылки для загрузки изображения мероприятия напрямую в хранилище")
+    @ApiResponses(
+        value = {
+            @ApiResponse(
+                content = {
+                    @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = FileUploadIntentResponse.class))
+                })
+        })
+    @PreAuthorize("@eventSecurityExpression.canUpdateEvent(#id)")
+    @PostMapping("/{id}/image/upload-intent")
+    public ResponseEntity<FileUploadIntentResponse> createImageUploadIntent(@Min(1) @PathVariable("id") @Parameter(name = "id", description = "ID мероприятия", example = "1") Integer id) {
+        return ResponseEntity.ok().body(eventService.createImageUploadIntent(id));
+    }
+
+    @Operation(summary = "Подтверждение загрузки изображения мероприятия в хранилище")
+    @PreAuthorize("@eventSecurityExpression.canUpdateEvent(#id)")
+    @PostMapping("/{id}/image/confirm")
+    public ResponseEntity<Void> confirmImageUpload(@Min(1) @PathVariable("id") @Parameter(name = "id", description = "ID мероприятия", example = "1") Integer id) {
+        eventService.confirmImageUpload(id);
+        return ResponseEntity.noContent().build();
     }
 
     @Operation(summary = "Фильтрация мероприятий")
@@ -125,7 +154,8 @@ public class EventController {
         @Parameter(name = "format", description = "Формат мероприятия", example = "OFFLINE")
         EventFormat format) {
         PaginatedResponse<Event> result = eventService.getAllOrFilteredEvents(page, size, parentId, title, startDate, endDate, status, format);
-        PaginatedResponse<EventResponse> response = new PaginatedResponse<>(result.total(), EventMapper.eventsToEventResponseList(result.items()));
+        Map<Integer, Map<String, String>> imageVariants = eventImageService.getVariantUrls(result.items().stream().map(Event::getId).toList());
+        PaginatedResponse<EventResponse> response = new PaginatedResponse<>(result.total(), EventMapper.eventsToEventResponseList(result.items(), imageVariants));
         return ResponseEntity.ok().body(response);
     }
 
@@ -147,7 +177,7 @@ public class EventController {
         @PathVariable("id")
         @Parameter(name = "id", description = "ID мероприятия", example = "1")
         Integer id) {
-        return ResponseEntity.ok().body(EventMapper.eventToEventResponse(eventService.getEventById(id)));
+        return ResponseEntity.ok().body(EventMapper.eventToEventResponse(eventService.getEventById(id), eventImageService.getVariantUrls(id)));
     }
 
     @Operation(summary = "Удаление активности")
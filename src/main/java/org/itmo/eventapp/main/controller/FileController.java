@@ -0,0 +1,123 @@
+package org.itmo.eventapp.main.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
+import org.itmo.eventapp.main.minio.MinioService;
+import org.itmo.eventapp.main.storage.ObjectDiskCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Скачивание объектов хранилища через локальный дисковый кэш, включается storage.disk-cache.enabled.
+ * Объекты, которые не кэшируются, отдаются перенаправлением на подписанную ссылку хранилища
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(value = "/api/files")
+@ConditionalOnProperty(name = "storage.disk-cache.enabled", havingValue = "true")
+public class FileController {
+    private final ObjectDiskCache objectDiskCache;
+    private final MinioService minioService;
+
+    @Value("${minio.buckets:task-objects,event-images,event-participants}")
+    private Set<String> knownBuckets;
+
+    @Operation(summary = "Скачивание файла, поддерживает заголовок Range")
+    @GetMapping("/{bucket}/{object}")
+    public void download(@PathVariable @Parameter(name = "bucket", description = "Бакет", example = "event-images") String bucket,
+                         @PathVariable @Parameter(name = "object", description = "Имя файла в хранилище", example = "1") String object,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        if (!knownBuckets.contains(bucket)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, String.format(ExceptionConst.FILE_NOT_FOUND_MESSAGE, object));
+        }
+        // копии файла кэшируются один раз, по объекту с их общим содержимым
+        String blobKey = minioService.getBlobKey(bucket, object);
+        ObjectDiskCache.CachedObject cached = objectDiskCache.get(bucket, blobKey)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, String.format(ExceptionConst.FILE_NOT_FOUND_MESSAGE, object)));
+        if (cached.path() == null) {
+            response.sendRedirect(minioService.getDownloadUrl(bucket, blobKey));
+            return;
+        }
+        FileChannel file;
+        try {
+            file = FileChannel.open(cached.path());
+        } catch (NoSuchFileException e) {
+            // файл вытеснен из кэша параллельным запросом
+            response.sendRedirect(minioService.getDownloadUrl(bucket, blobKey));
+            return;
+        }
+        try (file) {
+            write(file, cached, request, response);
+        }
+    }
+
+    private void write(FileChannel file, ObjectDiskCache.CachedObject cached,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + cached.etag() + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(cached.contentType() != null ? cached.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+
+        // файл кэша с этим ETag не перезаписывается, но отдается не больше, чем в нем есть
+        long size = Math.min(cached.size(), file.size());
+        long start = 0;
+        long end = size - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // несколько диапазонов не поддерживаются, тогда объект отдается целиком
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                    // HttpRange не проверяет, что начало диапазона попадает в объект
+                    if (start >= size || start > end) {
+                        throw new IllegalArgumentException("Range start " + start + " is out of " + size + " bytes");
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+        }
+        response.setContentLengthLong(end - start + 1);
+
+        // поток ответа не файловый канал, поэтому transferTo копирует файл кэша через промежуточный буфер,
+        // но не читает его в память целиком
+        WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        while (position <= end) {
+            long transferred = file.transferTo(position, end - position + 1, output);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+    }
+}
@@ -10,17 +10,23 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.mail.EmailOutboxService;
+import org.itmo.eventapp.main.model.dto.response.NotificationFeedResponse;
 import org.itmo.eventapp.main.model.dto.response.NotificationPageResponse;
 import org.itmo.eventapp.main.model.dto.response.NotificationResponse;
 import org.itmo.eventapp.main.model.entity.Notification;
 import org.itmo.eventapp.main.model.entity.UserLoginInfo;
 import org.itmo.eventapp.main.model.mapper.NotificationMapper;
 import org.itmo.eventapp.main.service.NotificationService;
+import org.itmo.eventapp.main.service.NotificationStreamService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +37,8 @@ import java.util.List;
 @RequestMapping(value = "/api/notifications")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final EmailOutboxService emailOutboxService;
 
     @Operation(summary = "Получение списка всех уведомлений")
     @ApiResponses(
@@ -54,6 +62,17 @@ public class NotificationController {
         return ResponseEntity.ok(responseBody);
     }
 
+    @Operation(summary = "Получение ленты уведомлений с пагинацией по курсору")
+    @GetMapping(path = "/feed")
+    public ResponseEntity<NotificationFeedResponse> getNotificationFeed(
+        @AuthenticationPrincipal UserLoginInfo userDetails,
+        @RequestParam(name = "cursor", required = false) @Parameter(name = "cursor", description = "Курсор nextCursor из предыдущей страницы, для первой страницы не указывается") String cursor,
+        @RequestParam(name = "size", defaultValue = "25") @Min(1) @Max(25) @Parameter(name = "size", description = "Число уведомлений на странице", example = "15") Integer size,
+        @RequestParam(name = "withTotal", defaultValue = "false") @Parameter(name = "withTotal", description = "Подсчитать общее число уведомлений", example = "false") boolean withTotal
+    ) {
+        return ResponseEntity.ok(notificationService.getFeedByUserId(userDetails.getUser().getId(), cursor, size, withTotal));
+    }
+
     @Operation(summary = "Установка статуса прочитано у всех уведомлений")
     @PutMapping
     public ResponseEntity<List<NotificationResponse>> setAllAsSeenNotifications(
@@ -97,6 +116,32 @@ public class NotificationController {
             })
     @GetMapping(path = "/notSeenCount")
     public ResponseEntity<Long> getNotSeenCountNotification(@AuthenticationPrincipal UserLoginInfo userDetails) {
-        return ResponseEntity.ok(notificationService.getCountNotSeenNotificationByUserId(userDetails.getId()));
+        return ResponseEntity.ok(notificationService.getCountNotSeenNotificationByUserId(userDetails.getUser().getId()));
+    }
+
+    @Operation(summary = "Подписка на новые уведомления и изменения количества непрочитанных (SSE)")
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+        @AuthenticationPrincipal UserLoginInfo userDetails,
+        @RequestHeader(name = "Last-Event-ID", required = false) @Parameter(name = "Last-Event-ID", description = "ID последнего полученного уведомления", example = "15") Integer lastEventId
+    ) {
+        return notificationStreamService.subscribe(userDetails.getUser().getId(), lastEventId);
+    }
+
+    @Operation(summary = "Получение состояния очереди исходящих писем")
+    @ApiResponses(
+        value = {
+            @ApiResponse(
+                responseCode = "200",
+                content = {
+                    @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = EmailOutboxService.Stats.class))
+                })
+        })
+    @PreAuthorize("@notificationSecurityExpression.canViewEmailOutboxStats()")
+    @GetMapping(path = "/emailOutboxStats")
+    public ResponseEntity<EmailOutboxService.Stats> getEmailOutboxStats() {
+        return ResponseEntity.ok(emailOutboxService.getStats());
     }
-}
\ No newline at end of file
+}
@@ -9,13 +9,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.model.dto.request.ParticipantBroadcastRequest;
 import org.itmo.eventapp.main.model.dto.request.ParticipantPresenceRequest;
+import org.itmo.eventapp.main.model.dto.response.ParticipantBroadcastResponse;
 import org.itmo.eventapp.main.model.dto.response.ParticipantResponse;
+import org.itmo.eventapp.main.model.dto.response.ParticipantsImportResponse;
 import org.itmo.eventapp.main.model.entity.Participant;
 import org.itmo.eventapp.main.model.mapper.ParticipantMapper;
+import org.itmo.eventapp.main.service.ParticipantBroadcastService;
 import org.itmo.eventapp.main.service.ParticipantsService;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -24,10 +26,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -35,7 +36,11 @@ import java.util.List;
 @RequestMapping(value = "/api/events")
 @Validated
 public class ParticipantsController {
+    private static final MediaType XLSX_MEDIA_TYPE =
+        MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
     private final ParticipantsService participantsService;
+    private final ParticipantBroadcastService participantBroadcastService;
 
     @Operation(summary = "Получение списка участников мероприятия")
     @ApiResponses(
@@ -78,32 +83,56 @@ public class ParticipantsController {
                 content = {
                     @Content(
                         mediaType = "application/json",
-                        array = @ArraySchema(schema = @Schema(implementation = ParticipantResponse.class)))
+                        schema = @Schema(implementation = ParticipantsImportResponse.class))
                 })
         })
     @PreAuthorize("@participantsSecurityExpression.canImportList(#id)")
     @PostMapping(path = "/{id}/participants", consumes = { MediaType.MULTIPART_FORM_DATA_VALUE } )
-    public ResponseEntity<List<ParticipantResponse>> setPartisipantsList(@PathVariable("id") Integer id, @RequestParam("participantsFile") MultipartFile participantsFile) throws IOException {
-        List<Participant> participants = participantsService.setParticipants(id, participantsFile);
-        return ResponseEntity.status(HttpStatus.CREATED).body(ParticipantMapper.participantsToResponseList(participants));
+    public ResponseEntity<ParticipantsImportResponse> setPartisipantsList(@PathVariable("id") Integer id, @RequestParam("participantsFile") MultipartFile participantsFile) throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(participantsService.setParticipants(id, participantsFile));
     }
 
     @Operation(summary = "Экспорт списка участников мероприятия")
     @PreAuthorize("@participantsSecurityExpression.canExportList(#id)")
     @GetMapping("/{id}/participants/file")
-    public ResponseEntity<Resource> getParticipantsXlsxFile(@PathVariable("id") Integer id) throws IOException {
-        String path = participantsService.getParticipantsXlsx(id);
-        Path filePath = Paths.get(path);
-        Resource fileResource = new FileSystemResource(filePath);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.add(HttpHeaders.CONTENT_DISPOSITION,
-            "attachment; filename=\"" + filePath.getFileName().toString() + "\"");
-        headers.set("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    public ResponseEntity<StreamingResponseBody> getParticipantsXlsxFile(@PathVariable("id") Integer id) {
         return ResponseEntity.ok()
-            .headers(headers)
-            .contentLength(filePath.toFile().length())
-            .body(fileResource);
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ListOfParticipants.xlsx\"")
+            .contentType(XLSX_MEDIA_TYPE)
+            .body(participantsService.getParticipantsXlsx(id));
+    }
+
+    @Operation(summary = "Рассылка письма всем участникам мероприятия")
+    @ApiResponses(
+        value = {
+            @ApiResponse(
+                content = {
+                    @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ParticipantBroadcastResponse.class))
+                })
+        })
+    @PreAuthorize("@participantsSecurityExpression.canWorkWithList(#id)")
+    @PostMapping("/{id}/participants/broadcasts")
+    public ResponseEntity<ParticipantBroadcastResponse> createBroadcast(@PathVariable("id") Integer id,
+                                                                        @Valid @RequestBody ParticipantBroadcastRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(participantBroadcastService.createBroadcast(id, request));
     }
 
+    @Operation(summary = "Прогресс рассылки участникам мероприятия")
+    @ApiResponses(
+        value = {
+            @ApiResponse(
+                content = {
+                    @Content(
+                        mediaType = "application/json",
+                        schema = @Schema(implementation = ParticipantBroadcastResponse.class))
+                })
+        })
+    @PreAuthorize("@participantsSecurityExpression.canWorkWithList(#id)")
+    @GetMapping("/{id}/participants/broadcasts/{broadcastId}")
+    public ResponseEntity<ParticipantBroadcastResponse> getBroadcast(@PathVariable("id") Integer id,
+                                                                     @Min(1) @PathVariable("broadcastId") Integer broadcastId) {
+        return ResponseEntity.ok().body(participantBroadcastService.getBroadcast(id, broadcastId));
+    }
 }
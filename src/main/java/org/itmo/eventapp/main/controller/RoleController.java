@@ -11,6 +11,7 @@ import org.itmo.eventapp.main.model.dto.response.EventResponse;
 import org.itmo.eventapp.main.model.dto.response.PrivilegeResponse;
 import org.itmo.eventapp.main.model.dto.response.PrivilegeWithHasOrganizerRolesResponse;
 import org.itmo.eventapp.main.model.dto.response.RoleResponse;
+import org.itmo.eventapp.main.model.entity.Event;
 import org.itmo.eventapp.main.model.entity.Privilege;
 import org.itmo.eventapp.main.model.entity.Role;
 import org.itmo.eventapp.main.model.entity.UserLoginInfo;
@@ -20,6 +21,7 @@ import org.itmo.eventapp.main.model.entity.enums.RoleType;
 import org.itmo.eventapp.main.model.mapper.EventMapper;
 import org.itmo.eventapp.main.model.mapper.PrivilegeMapper;
 import org.itmo.eventapp.main.model.mapper.RoleMapper;
+import org.itmo.eventapp.main.service.EventImageService;
 import org.itmo.eventapp.main.service.EventRoleService;
 import org.itmo.eventapp.main.service.PrivilegeService;
 import org.itmo.eventapp.main.service.RoleService;
@@ -42,6 +44,7 @@ public class RoleController {
     private final RoleService roleService;
     private final PrivilegeService privilegeService;
     private final EventRoleService eventRoleService;
+    private final EventImageService eventImageService;
 
     @Operation(summary = "Получение роли по id")
     @PreAuthorize("@roleSecurityExpression.canCreateRole() or @roleSecurityExpression.canEditRole() or @roleSecurityExpression.canDeleteRole()")
@@ -235,8 +238,9 @@ public class RoleController {
         @AuthenticationPrincipal UserLoginInfo userDetails,
         @Positive(message = "Параметр id не может быть меньше 1!")
         @Parameter(name = "id", description = "ID роли", example = "1") @PathVariable Integer id) {
+        List<Event> events = eventRoleService.getEventsByRole(userDetails.getUser().getId(), id);
         return ResponseEntity.ok().body(
-            EventMapper.eventsToEventResponseList(eventRoleService.getEventsByRole(userDetails.getUser().getId(), id))
+            EventMapper.eventsToEventResponseList(events, eventImageService.getVariantUrls(events.stream().map(Event::getId).toList()))
         );
     }
 
@@ -246,8 +250,9 @@ public class RoleController {
             @Parameter(name = "privilegeId", description = "ID привилегии", example = "1") @PathVariable Integer privilegeId,
             @Positive(message = "Параметр userId не может быть меньше 1!")
             @Parameter(name = "userId", description = "ID пользователя", example = "1") @PathVariable Integer userId) {
+        List<Event> events = eventRoleService.getEventsByPrivilege(userId, privilegeId);
         return ResponseEntity.ok().body(
-                EventMapper.eventsToEventResponseList(eventRoleService.getEventsByPrivilege(userId, privilegeId))
+                EventMapper.eventsToEventResponseList(events, eventImageService.getVariantUrls(events.stream().map(Event::getId).toList()))
         );
     }
 }
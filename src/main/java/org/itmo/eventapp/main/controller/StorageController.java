@@ -0,0 +1,82 @@
+package org.itmo.eventapp.main.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.storage.FileSystemObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Map;
+
+/**
+ * Отдает и принимает объекты хранилища storage.backend=filesystem по ссылкам FileSystemObjectStorage.
+ * Чтение без подписи, как у публичных бакетов MinIO, запись только по подписанной ссылке
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping(value = "/api/storage")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "filesystem")
+public class StorageController {
+    private final FileSystemObjectStorage storage;
+
+    @Operation(summary = "Получение объекта хранилища")
+    @GetMapping("/{bucket}/{key}")
+    public void getObject(@PathVariable String bucket,
+                          @PathVariable String key,
+                          HttpServletResponse response) throws IOException {
+        StoredObject object = storage.stat(bucket, key)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+        storage.getHeaders(bucket, key).forEach(response::setHeader);
+        response.setContentType(object.contentType() != null ? object.contentType() : MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.ETAG, "\"" + object.etag() + "\"");
+        try (FileChannel file = FileChannel.open(storage.getObjectPath(bucket, key))) {
+            // размер берется у открытого файла: объект мог быть перезаписан после stat
+            long size = file.size();
+            response.setContentLengthLong(size);
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                long transferred = file.transferTo(position, size - position, output);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @Operation(summary = "Загрузка объекта в хранилище по подписанной ссылке")
+    @PutMapping("/{bucket}/{key}")
+    public ResponseEntity<Void> putObject(@PathVariable String bucket,
+                                          @PathVariable String key,
+                                          @RequestParam long expires,
+                                          @RequestParam String signature,
+                                          HttpServletRequest request) throws IOException {
+        if (!storage.isValidSignature(HttpMethod.PUT, bucket, key, expires, signature)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN);
+        }
+        if (!storage.bucketExists(bucket)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        StoredObject object;
+        try (InputStream stream = request.getInputStream()) {
+            object = storage.put(bucket, key, stream, request.getContentLengthLong(), request.getContentType(), Map.of());
+        }
+        return ResponseEntity.ok().eTag(object.etag()).build();
+    }
+}
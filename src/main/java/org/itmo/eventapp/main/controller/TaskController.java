@@ -2,13 +2,17 @@ package org.itmo.eventapp.main.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.itmo.eventapp.main.model.dto.request.TaskRequest;
 import org.itmo.eventapp.main.model.dto.response.FileDataResponse;
+import org.itmo.eventapp.main.model.dto.response.FileUploadIntentResponse;
+import org.itmo.eventapp.main.model.dto.response.FilesSummaryResponse;
 import org.itmo.eventapp.main.model.dto.response.TaskResponse;
 import org.itmo.eventapp.main.model.entity.Task;
 import org.itmo.eventapp.main.model.entity.enums.TaskStatus;
@@ -21,6 +25,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,7 +33,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -37,6 +44,8 @@ import java.util.List;
 @RestController
 @RequestMapping(value = "/api/tasks")
 public class TaskController {
+    private static final MediaType ZIP_MEDIA_TYPE = MediaType.parseMediaType("application/zip");
+
     private final TaskService taskService;
     private final UserService userService;
 
@@ -80,6 +89,39 @@ public class TaskController {
         return ResponseEntity.ok().body(allTaskFilesList);
     }
 
+    @Operation(summary = "Добавление файла к задаче потоком из тела запроса")
+    @PreAuthorize("@taskSecurityExpression.canEditTaskFiles(#id)")
+    @PutMapping("/{id}/files/stream")
+    public ResponseEntity<List<FileDataResponse>> uploadFileStream(@Min(value = 1, message = "Параметр id не может быть меньше 1!")
+                                                                   @PathVariable @Parameter(name = "id", description = "ID задачи", example = "1") Integer id,
+                                                                   @RequestParam @NotBlank @Parameter(name = "filename", description = "Имя файла", example = "report.pdf") String filename,
+                                                                   HttpServletRequest request) throws IOException {
+
+        List<FileDataResponse> allTaskFilesList = taskService.addFileStream(id, filename, request.getInputStream(),
+                request.getContentLengthLong(), request.getContentType());
+        return ResponseEntity.ok().body(allTaskFilesList);
+    }
+
+    @Operation(summary = "Получение ссылок для загрузки файлов задачи напрямую в хранилище")
+    @PreAuthorize("@taskSecurityExpression.canEditTaskFiles(#id)")
+    @PostMapping("/{id}/files/upload-intents")
+    public ResponseEntity<List<FileUploadIntentResponse>> createFileUploadIntents(@Min(value = 1, message = "Параметр id не может быть меньше 1!")
+                                                                                  @PathVariable @Parameter(name = "id", description = "ID задачи", example = "1") Integer id,
+                                                                                  @RequestBody @NotEmpty List<String> fileNames) {
+
+        return ResponseEntity.ok().body(taskService.createFileUploadIntents(id, fileNames));
+    }
+
+    @Operation(summary = "Подтверждение загрузки файлов задачи в хранилище")
+    @PreAuthorize("@taskSecurityExpression.canEditTaskFiles(#id)")
+    @PostMapping("/{id}/files/confirm")
+    public ResponseEntity<List<FileDataResponse>> confirmFileUploads(@Min(value = 1, message = "Параметр id не может быть меньше 1!")
+                                                                     @PathVariable @Parameter(name = "id", description = "ID задачи", example = "1") Integer id,
+                                                                     @RequestBody @NotEmpty List<String> fileNamesInMinio) {
+
+        return ResponseEntity.ok().body(taskService.confirmFileUploads(id, fileNamesInMinio));
+    }
+
     @Operation(summary = "Получение списка имен файлов задачи")
     @PreAuthorize("@taskSecurityExpression.canGetTask(#id)")
     @GetMapping("/{id}/files")
@@ -89,6 +131,27 @@ public class TaskController {
         return ResponseEntity.ok().body(taskService.getFileData(id));
     }
 
+    @Operation(summary = "Скачивание всех файлов задачи одним ZIP архивом")
+    @PreAuthorize("@taskSecurityExpression.canGetTask(#id)")
+    @GetMapping("/{id}/files/zip")
+    public ResponseEntity<StreamingResponseBody> getFilesZip(@Min(value = 1, message = "Параметр id не может быть меньше 1!")
+                                                             @PathVariable @Parameter(name = "id", description = "ID задачи", example = "1") Integer id) {
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"task-" + id + ".zip\"")
+            .contentType(ZIP_MEDIA_TYPE)
+            .body(taskService.getFilesZip(id));
+    }
+
+    @Operation(summary = "Получение числа и суммарного размера файлов задачи")
+    @PreAuthorize("@taskSecurityExpression.canGetTask(#id)")
+    @GetMapping("/{id}/files/summary")
+    public ResponseEntity<FilesSummaryResponse> getFilesSummary(@Min(value = 1, message = "Параметр id не может быть меньше 1!")
+                                                                @PathVariable @Parameter(name = "id", description = "ID задачи", example = "1") Integer id) {
+
+        return ResponseEntity.ok().body(taskService.getFilesSummary(id));
+    }
+
     @Operation(summary = "Удаление файлов из задачи")
     @PreAuthorize("@taskSecurityExpression.canEditTaskFiles(#id)")
     @DeleteMapping("/{id}/files")
@@ -199,6 +262,18 @@ public class TaskController {
         return ResponseEntity.ok().body(TaskMapper.tasksToTaskResponseList(newTasks, taskService));
     }
 
+    @Operation(summary = "Скачивание файлов всех задач мероприятия одним ZIP архивом")
+    @PreAuthorize("@taskSecurityExpression.canGetEventTasks(#eventId)")
+    @GetMapping("/event/{eventId}/files/zip")
+    public ResponseEntity<StreamingResponseBody> getEventFilesZip(@Min(value = 1, message = "Параметр eventId не может быть меньше 1!")
+                                                                  @PathVariable @Parameter(name = "eventId", description = "ID мероприятия", example = "1") Integer eventId) {
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"event-" + eventId + "-tasks.zip\"")
+            .contentType(ZIP_MEDIA_TYPE)
+            .body(taskService.getEventFilesZip(eventId));
+    }
+
     @Operation(summary = "Получение списка задач мероприятия")
     @PreAuthorize("@taskSecurityExpression.canGetEventTasks(#eventId)")
     @GetMapping("/event/{eventId}")
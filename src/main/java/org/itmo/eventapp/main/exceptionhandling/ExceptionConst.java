@@ -40,12 +40,16 @@ public class ExceptionConst {
     public static final String REDUNDANT_PASSWORD_RECOVERY = "Старый и новый пароли не должны совпадать";
 
     public static final String NOTIFICATION_ERROR_MESSAGE = "Ошибка получения уведомления, пожалуйста, обновите страницу";
+    public static final String NOTIFICATION_CURSOR_ERROR_MESSAGE = "Некорректный курсор ленты уведомлений";
 
     public static final String TASK_NOT_FOUND_MESSAGE = "Задача не найдена";
 
     public static final String EVENT_DELETION_FORBIDDEN_MESSAGE = "Удаление мероприятий запрещено!";
 
     public static final String INVALID_TASK_FILE_NAMES_MESSAGE = "Не все файлы относятся к задаче!";
+    public static final String FILE_NOT_UPLOADED_MESSAGE = "Файл %s не загружен в хранилище";
+    public static final String FILE_NOT_FOUND_MESSAGE = "Файл %s не найден";
+    public static final String FILE_TOO_LARGE_MESSAGE = "Размер файла превышает %d байт";
 
     public static final String EMAIL_NOT_APPROVED = "Невозможно восстановить пароль без подтвержденной почты";
 
@@ -57,7 +61,12 @@ public class ExceptionConst {
     public static final String INVALID_LOGIN_TYPE = "Неверный тип логина";
 
     public static final String PARTICIPANTS_LIST_PARSING_ERROR = "Ошибка парсинга списка участников";
+    public static final String PARTICIPANT_BROADCAST_NOT_FOUND_MESSAGE = "Рассылка не найдена";
     public static final String EXCEL_COLUMNS_ERROR = "Ошибка парсинга списка участников. В файле не присутствуют столбцы: ФИО или Email или Телефон";
+    public static final String PARTICIPANT_NAME_MISSING = "Не указано ФИО";
+    public static final String PARTICIPANT_EMAIL_MISSING = "Не указан Email";
+    public static final String PARTICIPANT_EMAIL_INVALID = "Некорректный Email";
+    public static final String PARTICIPANT_FIELD_TOO_LONG = "%s длиннее %d символов";
 
     public static final String EVENT_START_TO_END_VALIDATION = "Время начала мероприятия не может быть после времени конца мероприятия";
     public static final String EVENT_REGISTRATION_START_TO_END_VALIDATION = "Время начала регистрации на мероприятие не может быть после времени конца регистрации на мероприятие";
@@ -0,0 +1,134 @@
+package org.itmo.eventapp.main.mail;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.itmo.eventapp.main.model.entity.EmailDigestItem;
+import org.itmo.eventapp.main.model.entity.enums.EmailDigestItemType;
+import org.itmo.eventapp.main.repository.EmailDigestItemRepository;
+import org.itmo.eventapp.main.repository.UserNotificationInfoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Объединяет письма о задачах одному получателю, созданные в течение окна window-in-seconds, в одно письмо.
+ * Окно открывается первым письмом получателя, после его закрытия одиночное письмо уходит по своему шаблону,
+ * а несколько писем - одной сводкой.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class EmailDigestService {
+
+    private static final String DIGEST_TEMPLATE = "task-digest-template";
+    private static final String DIGEST_ITEM_TEMPLATE = "task-digest-item-template";
+
+    private static final Map<EmailDigestItemType, TaskMessage> TASK_MESSAGES = new EnumMap<>(Map.of(
+        EmailDigestItemType.INCOMING_TASK, new TaskMessage("Новая задача!", "incoming-task-template", "Новая задача"),
+        EmailDigestItemType.OVERDUE_TASK, new TaskMessage("Просроченная задача!", "overdue-task-template", "Просроченная задача"),
+        EmailDigestItemType.REMINDER_TASK, new TaskMessage("Не забудьте выполнить задачу!", "reminder-task-template", "Напоминание о задаче")
+    ));
+
+    private final EmailDigestItemRepository emailDigestItemRepository;
+    private final UserNotificationInfoRepository userNotificationInfoRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateRegistry emailTemplateRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${notifications.email.digest.window-in-seconds:300}")
+    private Long windowInSeconds;
+
+    @Value("${notifications.email.digest.flush-batch-size:100}")
+    private Integer flushBatchSize;
+
+    private record TaskMessage(String subject, String templateName, String digestLabel) {
+    }
+
+    public void add(EmailDigestItemType type, String recipient, String userName, String eventName, String taskName, String taskLink) {
+        EmailDigestItem item = EmailDigestItem.builder()
+            .recipient(recipient)
+            .userName(userName)
+            .type(type)
+            .eventName(eventName)
+            .taskName(taskName)
+            .taskLink(taskLink)
+            .createdTime(LocalDateTime.now())
+            .build();
+        if (windowInSeconds <= 0) {
+            enqueueSingle(item);
+            return;
+        }
+        emailDigestItemRepository.save(item);
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.email.digest.flush-period-in-millis:10000}")
+    public void flushDigests() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<String> recipients;
+        do {
+            recipients = emailDigestItemRepository.findRecipientsWithItemsCreatedBefore(
+                LocalDateTime.now().minusSeconds(windowInSeconds), flushBatchSize);
+            // каждый получатель в своей транзакции, чтобы ошибка одного письма не откатывала остальные
+            for (String recipient : recipients) {
+                transactionTemplate.executeWithoutResult(status -> flush(recipient));
+            }
+        } while (recipients.size() == flushBatchSize);
+    }
+
+    private void flush(String recipient) {
+        List<EmailDigestItem> items = emailDigestItemRepository.deleteAllByRecipientReturning(recipient);
+        if (items.isEmpty()) {
+            return;
+        }
+        // пользователь мог отключить письма, пока они копились
+        if (!userNotificationInfoRepository.findEnableEmailNotificationsByLogin(recipient).orElse(true)) {
+            return;
+        }
+        if (items.size() == 1) {
+            enqueueSingle(items.get(0));
+            return;
+        }
+
+        items = items.stream().sorted(Comparator.comparing(EmailDigestItem::getId)).toList();
+        EmailTemplate itemTemplate = emailTemplateRegistry.get(DIGEST_ITEM_TEMPLATE);
+        StringBuilder tasks = new StringBuilder();
+        for (EmailDigestItem item : items) {
+            Map<String, String> itemFields = getTaskNotificationTemplateFields(item);
+            itemFields.put("type", TASK_MESSAGES.get(item.getType()).digestLabel());
+            tasks.append(itemTemplate.render(itemFields));
+        }
+
+        Map<String, String> digestFields = new HashMap<>();
+        digestFields.put("userName", items.get(items.size() - 1).getUserName());
+        digestFields.put("taskCount", String.valueOf(items.size()));
+        digestFields.put("tasks", tasks.toString());
+        String body = emailTemplateRegistry.get(DIGEST_TEMPLATE).render(digestFields, Set.of("tasks"));
+        emailOutboxService.enqueueHtml(recipient, "Уведомления о задачах (" + items.size() + ")", body);
+    }
+
+    private void enqueueSingle(EmailDigestItem item) {
+        TaskMessage message = TASK_MESSAGES.get(item.getType());
+        emailOutboxService.enqueue(item.getRecipient(), message.subject(), message.templateName(),
+            getTaskNotificationTemplateFields(item));
+    }
+
+    // Сопоставляет пары ключ:значение для шаблонов писем, связанных с задачами
+    private Map<String, String> getTaskNotificationTemplateFields(EmailDigestItem item) {
+        HashMap<String, String> templateFields = new HashMap<>();
+        templateFields.put("userName", item.getUserName());
+        templateFields.put("eventName", item.getEventName());
+        templateFields.put("taskName", item.getTaskName());
+        templateFields.put("taskLink", item.getTaskLink());
+        return templateFields;
+    }
+}
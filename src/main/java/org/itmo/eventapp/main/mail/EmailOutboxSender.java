@@ -0,0 +1,147 @@
+package org.itmo.eventapp.main.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.itmo.eventapp.main.model.entity.EmailOutbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Воркеры, отправляющие письма из email_outbox. Работают в собственном пуле потоков,
+ * чтобы медленный SMTP сервер не занимал общий планировщик, каждая пачка писем отправляется
+ * через одно соединение из {@link SmtpConnectionPool}.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class EmailOutboxSender {
+
+    private final EmailOutboxService emailOutboxService;
+    private final JavaMailSender mailSender;
+    private final SmtpConnectionPool smtpConnectionPool;
+
+    @Value("${spring.mail.username}")
+    private String senderName;
+
+    @Value("${notifications.email.outbox.workers:2}")
+    private Integer workers;
+
+    @Value("${notifications.email.outbox.batch-size:50}")
+    private Integer batchSize;
+
+    @Value("${notifications.email.outbox.poll-delay-in-millis:2000}")
+    private Long pollDelayInMillis;
+
+    private ScheduledExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.scheduleWithFixedDelay(this::poll, pollDelayInMillis, pollDelayInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void poll() {
+        try {
+            // полная пачка означает, что в очереди есть еще письма, поэтому забираем следующую без ожидания
+            while (!executor.isShutdown() && sendBatch() == batchSize) {
+                Thread.yield();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // исключение отменило бы дальнейшие запуски воркера
+            log.error("Email outbox worker failed", e);
+        }
+    }
+
+    int sendBatch() throws InterruptedException {
+        List<EmailOutbox> batch = emailOutboxService.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<EmailOutbox> emails = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            try {
+                messages.add(createMessage(email));
+                emails.add(email);
+            } catch (MessagingException e) {
+                emailOutboxService.markFailed(email, e.getMessage());
+            }
+        }
+
+        Map<MimeMessage, Exception> failedMessages;
+        try {
+            failedMessages = smtpConnectionPool.send(messages);
+        } catch (SmtpConnectionPool.BorrowTimeoutException e) {
+            log.debug("No free SMTP connection, {} emails are returned to the outbox", emails.size());
+            emailOutboxService.release(emails.stream().map(EmailOutbox::getId).toList());
+            return batch.size();
+        } catch (MessagingException e) {
+            log.warn("Failed to send {} emails: {}", messages.size(), e.getMessage());
+            for (EmailOutbox email : emails) {
+                emailOutboxService.markFailed(email, e.getMessage());
+            }
+            return batch.size();
+        }
+
+        List<Integer> sentIds = new ArrayList<>(emails.size());
+        List<Integer> releasedIds = new ArrayList<>();
+        for (int i = 0; i < emails.size(); i++) {
+            Exception error = failedMessages.get(messages.get(i));
+            if (error == null) {
+                sentIds.add(emails.get(i).getId());
+            } else if (error instanceof SmtpConnectionPool.BorrowTimeoutException) {
+                releasedIds.add(emails.get(i).getId());
+            } else {
+                emailOutboxService.markFailed(emails.get(i), error.getMessage());
+            }
+        }
+        emailOutboxService.markSent(sentIds);
+        emailOutboxService.release(releasedIds);
+        if (!failedMessages.isEmpty()) {
+            log.warn("Failed to send {} of {} emails", failedMessages.size(), messages.size());
+        }
+        return batch.size();
+    }
+
+    private MimeMessage createMessage(EmailOutbox email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(senderName);
+        message.setRecipients(Message.RecipientType.TO, email.getRecipient());
+        message.setSubject(email.getSubject());
+        message.setContent(email.getBody(), "text/html; charset=utf-8");
+        return message;
+    }
+}
@@ -0,0 +1,125 @@
+package org.itmo.eventapp.main.mail;
+
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.model.entity.EmailOutbox;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+import org.itmo.eventapp.main.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Очередь исходящих писем. Письмо сохраняется в таблицу email_outbox в транзакции вызывающего кода
+ * и отправляется позже воркерами {@link EmailOutboxSender}, поэтому откат транзакции отменяет и письмо.
+ */
+@RequiredArgsConstructor
+@Service
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailTemplateRegistry emailTemplateRegistry;
+
+    @Value("${notifications.email.outbox.lease-in-seconds:300}")
+    private Long leaseInSeconds;
+
+    @Value("${notifications.email.outbox.max-attempts:8}")
+    private Integer maxAttempts;
+
+    @Value("${notifications.email.outbox.backoff-base-in-seconds:30}")
+    private Long backoffBaseInSeconds;
+
+    @Value("${notifications.email.outbox.backoff-max-in-seconds:3600}")
+    private Long backoffMaxInSeconds;
+
+    @Value("${notifications.email.outbox.sent-retention-in-days:7}")
+    private Long sentRetentionInDays;
+
+    /**
+     * Состояние очереди: число писем по статусам и возраст самого старого неотправленного письма
+     */
+    public record Stats(long pending, long sent, long failed, Long lagInSeconds) {
+    }
+
+    public void enqueue(String recipient, String subject, String templateName, Map<String, String> templateFields) {
+        enqueueHtml(recipient, subject, emailTemplateRegistry.get(templateName).render(templateFields));
+    }
+
+    public void enqueueHtml(String recipient, String subject, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.save(EmailOutbox.builder()
+            .recipient(recipient)
+            .subject(subject)
+            .body(body)
+            .status(EmailOutboxStatus.PENDING)
+            .attempts(0)
+            .createdTime(now)
+            .nextAttemptTime(now)
+            .build());
+    }
+
+    /**
+     * Забирает письма, время отправки которых наступило. Пока идет отправка, письма скрыты от других воркеров
+     * на lease-in-seconds, после чего письма упавшего воркера снова попадут в очередь.
+     */
+    public List<EmailOutbox> claimBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        return emailOutboxRepository.claimBatch(now, now.plusSeconds(leaseInSeconds), batchSize);
+    }
+
+    public void markSent(Collection<Integer> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.markSent(ids, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Возвращает письма в очередь без учета попытки: они не отправлялись, потому что не было свободного SMTP соединения
+     */
+    public void release(Collection<Integer> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.releaseClaim(ids, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Откладывает письмо с экспоненциально растущей задержкой, после max-attempts попыток письмо помечается FAILED
+     */
+    public void markFailed(EmailOutbox email, String error) {
+        int attempts = email.getAttempts();
+        emailOutboxRepository.markFailedAttempt(email.getId(), statusAfterFailedAttempt(attempts).name(),
+            nextAttemptTime(attempts), error);
+    }
+
+    public Stats getStats() {
+        LocalDateTime oldestPending = emailOutboxRepository.findOldestPendingCreatedTime();
+        return new Stats(
+            emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING),
+            emailOutboxRepository.countByStatus(EmailOutboxStatus.SENT),
+            emailOutboxRepository.countByStatus(EmailOutboxStatus.FAILED),
+            oldestPending == null ? null : Duration.between(oldestPending, LocalDateTime.now()).toSeconds());
+    }
+
+    @Scheduled(cron = "${notifications.email.outbox.cleanup-job:0 30 0 * * *}")
+    public void deleteSentEmails() {
+        emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(sentRetentionInDays));
+    }
+
+    EmailOutboxStatus statusAfterFailedAttempt(int attempts) {
+        return attempts >= maxAttempts ? EmailOutboxStatus.FAILED : EmailOutboxStatus.PENDING;
+    }
+
+    LocalDateTime nextAttemptTime(int attempts) {
+        return LocalDateTime.now().plus(backoff(attempts));
+    }
+
+    Duration backoff(int attempts) {
+        long seconds = backoffBaseInSeconds << Math.min(Math.max(attempts - 1, 0), 20);
+        return Duration.ofSeconds(Math.min(seconds, backoffMaxInSeconds));
+    }
+}
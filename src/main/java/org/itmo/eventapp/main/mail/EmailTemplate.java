@@ -0,0 +1,96 @@
+package org.itmo.eventapp.main.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Шаблон письма, заранее разобранный на литеральные фрагменты и плейсхолдеры вида ${name}.
+ * Рендеринг выполняется за один проход в переиспользуемый буфер потока,
+ * значения плейсхолдеров экранируются как HTML.
+ */
+public final class EmailTemplate {
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\$\\{(\\w+)}");
+    private static final int MAX_CACHED_BUFFER_CAPACITY = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(StringBuilder::new);
+
+    // literals[i] идёт перед placeholders[i], literals.length == placeholders.length + 1
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalsLength;
+
+    private EmailTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalsLength = length;
+    }
+
+    public static EmailTemplate parse(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(source);
+        int literalStart = 0;
+        while (matcher.find()) {
+            literals.add(source.substring(literalStart, matcher.start()));
+            placeholders.add(matcher.group(1));
+            literalStart = matcher.end();
+        }
+        literals.add(source.substring(literalStart));
+        return new EmailTemplate(literals.toArray(String[]::new), placeholders.toArray(String[]::new));
+    }
+
+    /**
+     * @param fields значения плейсхолдеров по имени без ${}, отсутствующие плейсхолдеры остаются в тексте как есть
+     */
+    public String render(Map<String, String> fields) {
+        return render(fields, Set.of());
+    }
+
+    /**
+     * @param fields     значения плейсхолдеров по имени без ${}, отсутствующие плейсхолдеры остаются в тексте как есть
+     * @param htmlFields плейсхолдеры, значения которых уже являются HTML и вставляются без экранирования
+     */
+    public String render(Map<String, String> fields, Set<String> htmlFields) {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        buffer.ensureCapacity(literalsLength + placeholders.length * 32);
+        buffer.append(literals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            String value = fields.get(placeholders[i]);
+            if (value == null) {
+                buffer.append("${").append(placeholders[i]).append('}');
+            } else if (htmlFields.contains(placeholders[i])) {
+                buffer.append(value);
+            } else {
+                appendEscaped(buffer, value);
+            }
+            buffer.append(literals[i + 1]);
+        }
+        String result = buffer.toString();
+        if (buffer.capacity() > MAX_CACHED_BUFFER_CAPACITY) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private static void appendEscaped(StringBuilder buffer, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> buffer.append("&lt;");
+                case '>' -> buffer.append("&gt;");
+                case '&' -> buffer.append("&amp;");
+                case '"' -> buffer.append("&quot;");
+                case '\'' -> buffer.append("&#39;");
+                default -> buffer.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.itmo.eventapp.main.mail;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Загружает и разбирает все шаблоны писем из notification/email-templates один раз при старте приложения
+ */
+@Slf4j
+@Component
+public class EmailTemplateRegistry {
+    private static final String TEMPLATES_LOCATION = "classpath*:notification/email-templates/*.html";
+
+    private final Map<String, EmailTemplate> templates = new HashMap<>();
+
+    public EmailTemplateRegistry() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(TEMPLATES_LOCATION);
+        for (Resource resource : resources) {
+            String fileName = resource.getFilename();
+            if (fileName == null) {
+                continue;
+            }
+            try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+                templates.put(fileName.substring(0, fileName.length() - ".html".length()),
+                    EmailTemplate.parse(FileCopyUtils.copyToString(reader)));
+            }
+        }
+        log.info("Loaded {} email templates", templates.size());
+    }
+
+    /**
+     * @param name имя файла шаблона без расширения, например incoming-task-template
+     */
+    public EmailTemplate get(String name) {
+        EmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Email template not found: " + name);
+        }
+        return template;
+    }
+}
@@ -1,9 +1,5 @@
 package org.itmo.eventapp.main.mail;
 
-import jakarta.mail.MessagingException;
-
-import java.io.IOException;
-
 /**
  * Сервис для отправки писем по электронной почте
  */
@@ -19,7 +15,7 @@ public interface MailSenderService {
      * @param taskName  - название задачи для шаблона
      * @param taskLink  - ссылка на задачу
      */
-    void sendIncomingTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink) throws MessagingException, IOException;
+    void sendIncomingTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink);
 
     /**
      * Отправляет письмо на указанный email с уведомлением о просроченной задаче.
@@ -31,7 +27,7 @@ public interface MailSenderService {
      * @param taskName  - название задачи для шаблона
      * @param taskLink  - ссылка на задачу
      */
-    void sendOverdueTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink) throws MessagingException, IOException;
+    void sendOverdueTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink);
 
     /**
      * Отправляет письмо на указанный email с напоминанием в выполнении задачи.
@@ -43,7 +39,7 @@ public interface MailSenderService {
      * @param taskName  - название задачи для шаблона
      * @param taskLink  - ссылка на задачу
      */
-    void sendReminderTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink) throws MessagingException, IOException;
+    void sendReminderTaskMessage(String userEmail, String userName, String eventName, String taskName, String taskLink);
 
     /**
      * Отправляет письмо на указанный email с уведомлением о принятии заявки на регистрацию.
@@ -52,7 +48,7 @@ public interface MailSenderService {
      * @param userEmail - почта, на которую отправится письмо
      * @param userName  - имя пользователя для шаблона
      */
-    void sendApproveRegistrationRequestMessage(String userEmail, String userName) throws MessagingException, IOException;
+    void sendApproveRegistrationRequestMessage(String userEmail, String userName);
 
     /**
      * Отправляет письмо на указанный email с уведомлением об отказе в регистрации.
@@ -61,7 +57,7 @@ public interface MailSenderService {
      * @param userEmail - почта, на которую отправится письмо
      * @param userName  - имя пользователя для шаблона
      */
-    void sendDeclineRegistrationRequestMessage(String userEmail, String userName) throws MessagingException, IOException;
+    void sendDeclineRegistrationRequestMessage(String userEmail, String userName);
 
     /**
      * Отправляет письмо на указанный email со ссылкой на восстановление пароля.
@@ -70,7 +66,7 @@ public interface MailSenderService {
      * @param userName - имя пользователя для шаблона
      * @param url - адрес метода установки нового пароля
      */
-    void sendRecoveryPasswordMessage(String userEmail, String userName, String url) throws MessagingException, IOException;
+    void sendRecoveryPasswordMessage(String userEmail, String userName, String url);
 
     /**
      * Отправляет письмо на указанный email со ссылкой для подтверждения почты.
@@ -79,6 +75,6 @@ public interface MailSenderService {
      * @param userName - имя пользователя для шаблона
      * @param url - адрес возврата после подтверждения почты
      */
-    void sendEmailVerificationMessage(String userEmail, String userName, String url)throws MessagingException, IOException;
+    void sendEmailVerificationMessage(String userEmail, String userName, String url);
 
 }
@@ -0,0 +1,175 @@
+package org.itmo.eventapp.main.mail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcast;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcastDelivery;
+import org.itmo.eventapp.main.repository.ParticipantBroadcastDeliveryRepository;
+import org.itmo.eventapp.main.repository.ParticipantBroadcastRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отправляет письма рассылок участникам мероприятий. Доставки забираются пачками из participant_broadcast_delivery,
+ * письмо рендерится для каждого участника и уходит через {@link SmtpConnectionPool},
+ * поэтому рассылка подчиняется общему ограничению скорости отправки.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ParticipantBroadcastSender {
+
+    private static final String TEMPLATE_NAME = "participant-broadcast-template";
+
+    private final ParticipantBroadcastDeliveryRepository participantBroadcastDeliveryRepository;
+    private final ParticipantBroadcastRepository participantBroadcastRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final EmailTemplateRegistry emailTemplateRegistry;
+    private final SmtpConnectionPool smtpConnectionPool;
+    private final JavaMailSender mailSender;
+
+    @Value("${spring.mail.username}")
+    private String senderName;
+
+    @Value("${notifications.email.broadcast.batch-size:50}")
+    private Integer batchSize;
+
+    @Value("${notifications.email.broadcast.poll-delay-in-millis:2000}")
+    private Long pollDelayInMillis;
+
+    @Value("${notifications.email.outbox.lease-in-seconds:300}")
+    private Long leaseInSeconds;
+
+    private ScheduledExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // один поток, чтобы рассылка занимала не больше одного SMTP соединения и не вытесняла остальные письма
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "participant-broadcast");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::poll, pollDelayInMillis, pollDelayInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private void poll() {
+        try {
+            int sent;
+            do {
+                sent = sendBatch();
+                if (sent > 0) {
+                    participantBroadcastRepository.completeFinished(LocalDateTime.now());
+                }
+            } while (!executor.isShutdown() && sent == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // исключение отменило бы дальнейшие запуски воркера
+            log.error("Participant broadcast worker failed", e);
+        }
+    }
+
+    private int sendBatch() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        List<ParticipantBroadcastDelivery> batch =
+            participantBroadcastDeliveryRepository.claimBatch(now, now.plusSeconds(leaseInSeconds), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<ParticipantBroadcastDelivery> deliveries = new ArrayList<>(batch.size());
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        for (ParticipantBroadcastDelivery delivery : batch) {
+            try {
+                messages.add(createMessage(delivery));
+                deliveries.add(delivery);
+            } catch (MessagingException e) {
+                markFailed(delivery, e.getMessage());
+            }
+        }
+
+        Map<MimeMessage, Exception> failedMessages;
+        try {
+            failedMessages = smtpConnectionPool.send(messages);
+        } catch (SmtpConnectionPool.BorrowTimeoutException e) {
+            log.debug("No free SMTP connection, {} broadcast emails are returned to the queue", deliveries.size());
+            release(deliveries.stream().map(ParticipantBroadcastDelivery::getId).toList());
+            return batch.size();
+        } catch (MessagingException e) {
+            log.warn("Failed to send {} broadcast emails: {}", messages.size(), e.getMessage());
+            deliveries.forEach(delivery -> markFailed(delivery, e.getMessage()));
+            return batch.size();
+        }
+
+        List<Integer> sentIds = new ArrayList<>(deliveries.size());
+        List<Integer> releasedIds = new ArrayList<>();
+        for (int i = 0; i < deliveries.size(); i++) {
+            Exception error = failedMessages.get(messages.get(i));
+            if (error == null) {
+                sentIds.add(deliveries.get(i).getId());
+            } else if (error instanceof SmtpConnectionPool.BorrowTimeoutException) {
+                releasedIds.add(deliveries.get(i).getId());
+            } else {
+                markFailed(deliveries.get(i), error.getMessage());
+            }
+        }
+        if (!sentIds.isEmpty()) {
+            participantBroadcastDeliveryRepository.markSent(sentIds, LocalDateTime.now());
+        }
+        release(releasedIds);
+        return batch.size();
+    }
+
+    // письма не отправлялись, попытка не засчитывается
+    private void release(List<Integer> ids) {
+        if (!ids.isEmpty()) {
+            participantBroadcastDeliveryRepository.releaseClaim(ids, LocalDateTime.now());
+        }
+    }
+
+    private void markFailed(ParticipantBroadcastDelivery delivery, String error) {
+        int attempts = delivery.getAttempts();
+        participantBroadcastDeliveryRepository.markFailedAttempt(delivery.getId(),
+            emailOutboxService.statusAfterFailedAttempt(attempts).name(), emailOutboxService.nextAttemptTime(attempts), error);
+    }
+
+    private MimeMessage createMessage(ParticipantBroadcastDelivery delivery) throws MessagingException {
+        ParticipantBroadcast broadcast = delivery.getBroadcast();
+        Map<String, String> templateFields = new HashMap<>();
+        templateFields.put("participantName", delivery.getParticipantName());
+        templateFields.put("message", broadcast.getMessage());
+        templateFields.put("eventName", broadcast.getEvent().getTitle());
+
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom(senderName);
+        message.setRecipients(Message.RecipientType.TO, delivery.getRecipient());
+        message.setSubject(broadcast.getSubject());
+        message.setContent(emailTemplateRegistry.get(TEMPLATE_NAME).render(templateFields), "text/html; charset=utf-8");
+        return message;
+    }
+}
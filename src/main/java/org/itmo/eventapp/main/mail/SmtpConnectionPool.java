@@ -0,0 +1,246 @@
+package org.itmo.eventapp.main.mail;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пул долгоживущих SMTP соединений к почтовому серверу из spring.mail.
+ * Ограничивает число одновременных соединений и скорость отправки писем,
+ * чтобы массовые рассылки не упирались в ограничения почтового провайдера.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class SmtpConnectionPool {
+
+    private final JavaMailSenderImpl mailSender;
+
+    @Value("${notifications.email.smtp.max-connections:2}")
+    private Integer maxConnections;
+
+    @Value("${notifications.email.smtp.messages-per-second:10}")
+    private Double messagesPerSecond;
+
+    @Value("${notifications.email.smtp.max-messages-per-connection:100}")
+    private Integer maxMessagesPerConnection;
+
+    @Value("${notifications.email.smtp.idle-check-after-millis:30000}")
+    private Long idleCheckAfterMillis;
+
+    @Value("${notifications.email.smtp.max-idle-millis:120000}")
+    private Long maxIdleMillis;
+
+    @Value("${notifications.email.smtp.borrow-timeout-millis:30000}")
+    private Long borrowTimeoutMillis;
+
+    private final Deque<PooledTransport> idleTransports = new ConcurrentLinkedDeque<>();
+    private Semaphore connectionPermits;
+    private long nextSendNanos = System.nanoTime();
+
+    private static final class PooledTransport {
+        private final Transport transport;
+        private long lastUsedNanos = System.nanoTime();
+        private int sentMessages;
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+
+    /**
+     * Все соединения заняты дольше borrow-timeout-millis. Письма при этом не отправлялись,
+     * поэтому вызывающий код возвращает их в очередь, не засчитывая попытку
+     */
+    public static class BorrowTimeoutException extends MessagingException {
+        private static final long serialVersionUID = 1L;
+
+        BorrowTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        connectionPermits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Отправляет письма через одно соединение из пула.
+     *
+     * @return письма, которые не удалось отправить, с причиной ошибки
+     * @throws BorrowTimeoutException если за borrow-timeout-millis не освободилось ни одно соединение
+     * @throws MessagingException если не удалось установить соединение с почтовым сервером
+     */
+    public Map<MimeMessage, Exception> send(List<MimeMessage> messages) throws MessagingException, InterruptedException {
+        Map<MimeMessage, Exception> failedMessages = new IdentityHashMap<>();
+        PooledTransport pooled = borrow();
+        try {
+            for (int i = 0; i < messages.size(); i++) {
+                MimeMessage message = messages.get(i);
+                boolean retried = false;
+                while (true) {
+                    if (pooled == null) {
+                        try {
+                            pooled = borrow();
+                        } catch (MessagingException e) {
+                            // не удалось переподключиться, оставшиеся письма не отправлены
+                            for (MimeMessage notSent : messages.subList(i, messages.size())) {
+                                failedMessages.put(notSent, e);
+                            }
+                            return failedMessages;
+                        }
+                    }
+                    try {
+                        sendMessage(pooled, message);
+                        break;
+                    } catch (MessagingException e) {
+                        if (pooled.transport.isConnected()) {
+                            failedMessages.put(message, e);
+                            break;
+                        }
+                        // сервер закрыл соединение, письмо повторяется один раз через новое
+                        discard(pooled);
+                        pooled = null;
+                        if (retried) {
+                            failedMessages.put(message, e);
+                            break;
+                        }
+                        retried = true;
+                    }
+                }
+                if (pooled != null && maxMessagesPerConnection > 0 && pooled.sentMessages >= maxMessagesPerConnection) {
+                    discard(pooled);
+                    pooled = null;
+                }
+            }
+        } finally {
+            if (pooled != null) {
+                release(pooled);
+            }
+        }
+        return failedMessages;
+    }
+
+    /**
+     * Закрывает соединения, которые не использовались дольше max-idle-millis
+     */
+    @Scheduled(fixedDelayString = "${notifications.email.smtp.idle-check-after-millis:30000}")
+    public void evictIdleTransports() {
+        long now = System.nanoTime();
+        for (PooledTransport pooled : idleTransports) {
+            // соединение могли забрать между проверкой и удалением, закрывает его только тот, кто удалил
+            if (TimeUnit.NANOSECONDS.toMillis(now - pooled.lastUsedNanos) > maxIdleMillis
+                && idleTransports.removeFirstOccurrence(pooled)) {
+                discard(pooled);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        PooledTransport pooled;
+        while ((pooled = idleTransports.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    private PooledTransport borrow() throws MessagingException, InterruptedException {
+        PooledTransport pooled;
+        while ((pooled = idleTransports.pollFirst()) != null) {
+            // давно простаивающее соединение проверяется командой NOOP перед использованием
+            long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pooled.lastUsedNanos);
+            if (idleMillis < idleCheckAfterMillis || pooled.transport.isConnected()) {
+                return pooled;
+            }
+            discard(pooled);
+        }
+
+        if (!connectionPermits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new BorrowTimeoutException("No free SMTP connection in " + borrowTimeoutMillis + " ms");
+        }
+        try {
+            return new PooledTransport(connect());
+        } catch (MessagingException | RuntimeException e) {
+            connectionPermits.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledTransport pooled) {
+        pooled.lastUsedNanos = System.nanoTime();
+        idleTransports.addFirst(pooled);
+    }
+
+    private void discard(PooledTransport pooled) {
+        close(pooled.transport);
+        connectionPermits.release();
+    }
+
+    private void sendMessage(PooledTransport pooled, MimeMessage message) throws MessagingException, InterruptedException {
+        acquireSendPermit();
+        if (message.getSentDate() == null) {
+            message.setSentDate(new Date());
+        }
+        message.saveChanges();
+        pooled.transport.sendMessage(message, message.getAllRecipients());
+        pooled.sentMessages++;
+    }
+
+    private Transport connect() throws MessagingException {
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        if ("".equals(username)) {
+            username = null;
+            if ("".equals(password)) {
+                password = null;
+            }
+        }
+        String protocol = mailSender.getProtocol() == null ? JavaMailSenderImpl.DEFAULT_PROTOCOL : mailSender.getProtocol();
+        Transport transport = mailSender.getSession().getTransport(protocol);
+        transport.connect(mailSender.getHost(), mailSender.getPort(), username, password);
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    // равномерно распределяет отправку писем между всеми соединениями, не более messages-per-second писем в секунду
+    private void acquireSendPermit() throws InterruptedException {
+        if (messagesPerSecond <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long sendAt = Math.max(now, nextSendNanos);
+            nextSendNanos = sendAt + (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+            waitNanos = sendAt - now;
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
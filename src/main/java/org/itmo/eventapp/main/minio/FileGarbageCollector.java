@@ -0,0 +1,163 @@
+package org.itmo.eventapp.main.minio;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.model.entity.FileTombstone;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.itmo.eventapp.main.repository.EventRepository;
+import org.itmo.eventapp.main.repository.FileObjectRepository;
+import org.itmo.eventapp.main.repository.FileTombstoneRepository;
+import org.itmo.eventapp.main.repository.TaskRepository;
+import org.itmo.eventapp.main.service.FileObjectService;
+import org.itmo.eventapp.main.storage.ObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Удаляет в фоне файлы удаленных задач и мероприятий. Удаление владельца оставляет запись в file_tombstone,
+ * коллектор забирает записи пачками и удаляет файлы всех владельцев пачки одним запросом на бакет.
+ * Раз в сутки бакеты просматриваются целиком: удаляются файлы владельцев, удаленных каскадом в БД,
+ * и объекты с содержимым файлов, на которые больше не ссылается ни один файл
+ */
+@Log4j2
+@RequiredArgsConstructor
+@Component
+public class FileGarbageCollector {
+
+    private final FileTombstoneRepository fileTombstoneRepository;
+    private final FileObjectRepository fileObjectRepository;
+    private final TaskRepository taskRepository;
+    private final EventRepository eventRepository;
+    private final FileObjectService fileObjectService;
+    private final MinioService minioService;
+    private final ObjectStorage storage;
+
+    @Value("${minio.buckets:task-objects,event-images,event-participants}")
+    private Set<String> buckets;
+
+    @Value("${minio.gc.batch-size:100}")
+    private Integer batchSize;
+
+    @Value("${minio.gc.lease-in-seconds:300}")
+    private Long leaseInSeconds;
+
+    @Value("${minio.gc.retry-delay-in-seconds:600}")
+    private Long retryDelayInSeconds;
+
+    @Value("${minio.gc.grace-period-in-minutes:60}")
+    private Long gracePeriodInMinutes;
+
+    @Scheduled(fixedDelayString = "${minio.gc.poll-delay-in-millis:5000}")
+    public void collect() {
+        try {
+            // полная пачка означает, что записей больше, поэтому следующая забирается без ожидания
+            while (collectBatch() == batchSize) {
+                Thread.yield();
+            }
+        } catch (Exception e) {
+            log.error("File garbage collector failed", e);
+        }
+    }
+
+    int collectBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FileTombstone> batch = fileTombstoneRepository.claimBatch(now, now.plusSeconds(leaseInSeconds), batchSize);
+        Map<FileOwnerType, List<FileTombstone>> tombstonesByOwnerType = batch.stream()
+            .collect(Collectors.groupingBy(FileTombstone::getOwnerType));
+        for (Map.Entry<FileOwnerType, List<FileTombstone>> entry : tombstonesByOwnerType.entrySet()) {
+            String bucket = fileObjectService.getBucket(entry.getKey());
+            List<FileTombstone> tombstones = entry.getValue();
+            try {
+                minioService.deleteByOwners(bucket, tombstones.stream().map(FileTombstone::getOwnerId).toList());
+                fileTombstoneRepository.deleteAllByIdInBatch(tombstones.stream().map(FileTombstone::getId).toList());
+            } catch (Exception e) {
+                log.warn("Failed to delete files of {} owners from bucket {}: {}", tombstones.size(), bucket, e.getMessage());
+                LocalDateTime nextAttemptTime = LocalDateTime.now().plusSeconds(retryDelayInSeconds);
+                for (FileTombstone tombstone : tombstones) {
+                    fileTombstoneRepository.markFailedAttempt(tombstone.getId(), nextAttemptTime, e.getMessage());
+                }
+            }
+        }
+        return batch.size();
+    }
+
+    @Scheduled(cron = "${minio.gc.sweep-job:0 30 4 * * *}")
+    public void sweep() {
+        for (String bucket : buckets) {
+            if (!fileObjectService.isIndexed(bucket)) {
+                continue;
+            }
+            try {
+                sweep(bucket);
+            } catch (Exception e) {
+                log.warn("Failed to sweep orphaned files of bucket {}: {}", bucket, e.getMessage());
+            }
+        }
+    }
+
+    private void sweep(String bucket) {
+        // объекты моложе grace period могут принадлежать владельцу из еще не закоммиченной транзакции
+        LocalDateTime before = LocalDateTime.now().minusMinutes(gracePeriodInMinutes);
+        Map<String, Integer> ownerIds = new HashMap<>();
+        List<String> blobKeys = new ArrayList<>();
+        if (storage.bucketExists(bucket)) {
+            for (StoredObject object : storage.list(bucket, "")) {
+                if (object.lastModified() == null || object.lastModified().isAfter(before)) {
+                    continue;
+                }
+                Integer ownerId = fileObjectService.getOwnerId(object.key());
+                if (ownerId != null) {
+                    ownerIds.put(object.key(), ownerId);
+                } else if (object.key().startsWith(MinioService.BLOB_KEY_PREFIX)) {
+                    blobKeys.add(object.key());
+                }
+            }
+        }
+        for (FileObject file : fileObjectRepository.findAllByBucket(bucket)) {
+            if (!file.getCreatedTime().isAfter(before)) {
+                ownerIds.put(file.getObjectKey(), file.getOwnerId());
+            }
+        }
+
+        Set<Integer> existingOwnerIds = getExistingOwnerIds(fileObjectService.getOwnerType(bucket), new HashSet<>(ownerIds.values()));
+        List<String> orphans = new ArrayList<>();
+        ownerIds.forEach((object, ownerId) -> {
+            if (!existingOwnerIds.contains(ownerId)) {
+                orphans.add(object);
+            }
+        });
+        // объекты с содержимым удаляются, только если на них больше не ссылается ни один файл
+        orphans.addAll(blobKeys);
+        for (int from = 0; from < orphans.size(); from += batchSize) {
+            minioService.deleteAll(bucket, orphans.subList(from, Math.min(from + batchSize, orphans.size())));
+        }
+
+        if (!orphans.isEmpty()) {
+            log.info("Swept {} orphaned files of bucket {}", orphans.size(), bucket);
+        }
+    }
+
+    private Set<Integer> getExistingOwnerIds(FileOwnerType ownerType, Set<Integer> ownerIds) {
+        Set<Integer> existing = new HashSet<>();
+        List<Integer> ids = List.copyOf(ownerIds);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            existing.addAll(ownerType == FileOwnerType.TASK
+                ? taskRepository.findExistingIds(chunk)
+                : eventRepository.findExistingIds(chunk));
+        }
+        return existing;
+    }
+}
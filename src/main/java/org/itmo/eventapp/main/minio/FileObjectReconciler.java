@@ -0,0 +1,108 @@
+package org.itmo.eventapp.main.minio;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.repository.FileObjectRepository;
+import org.itmo.eventapp.main.service.FileObjectService;
+import org.itmo.eventapp.main.storage.ObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Сверяет индекс file_object с содержимым бакетов: добавляет объекты, загруженные в обход MinioService,
+ * обновляет измененные и удаляет записи об объектах, которых больше нет в хранилище
+ */
+@Log4j2
+@RequiredArgsConstructor
+@Component
+public class FileObjectReconciler {
+
+    private final ObjectStorage storage;
+    private final FileObjectRepository fileObjectRepository;
+    private final FileObjectService fileObjectService;
+
+    @Value("${minio.buckets:task-objects,event-images,event-participants}")
+    private Set<String> buckets;
+
+    @Value("${minio.file-index.reconcile-on-startup:true}")
+    private Boolean reconcileOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(cron = "${minio.file-index.reconcile-job:0 0 4 * * *}")
+    public void reconcile() {
+        for (String bucket : buckets) {
+            if (!fileObjectService.isIndexed(bucket)) {
+                continue;
+            }
+            try {
+                reconcile(bucket);
+            } catch (Exception e) {
+                log.warn("Failed to reconcile file index of bucket {}: {}", bucket, e.getMessage());
+            }
+        }
+    }
+
+    private void reconcile(String bucket) {
+        LocalDateTime startTime = LocalDateTime.now();
+        Map<String, StoredObject> objects = new HashMap<>();
+        if (storage.bucketExists(bucket)) {
+            for (StoredObject object : storage.list(bucket, "")) {
+                objects.put(object.key(), object);
+            }
+        }
+        Map<String, FileObject> files = new HashMap<>();
+        Set<String> blobKeys = new HashSet<>();
+        for (FileObject file : fileObjectRepository.findAllByBucket(bucket)) {
+            files.put(file.getObjectKey(), file);
+            blobKeys.add(file.getBlobKey());
+        }
+
+        int recorded = 0;
+        for (StoredObject object : objects.values()) {
+            FileObject file = files.get(object.key());
+            // объекты с содержимым файлов под другими именами не индексируются как отдельные файлы
+            if (file == null ? blobKeys.contains(object.key()) : !file.getBlobKey().equals(object.key())) {
+                continue;
+            }
+            String checksum = fileObjectService.normalizeChecksum(object.etag());
+            if (file == null || file.getSize() != object.size() || !Objects.equals(file.getChecksum(), checksum)) {
+                fileObjectService.record(bucket, object.key(), object.size(),
+                    file == null ? object.contentType() : file.getContentType(), checksum, object.lastModified());
+                recorded++;
+            }
+        }
+
+        // записи, созданные во время сверки, могли не попасть в список объектов
+        List<String> missing = new ArrayList<>();
+        for (FileObject file : files.values()) {
+            if (!objects.containsKey(file.getBlobKey()) && file.getCreatedTime().isBefore(startTime)) {
+                missing.add(file.getObjectKey());
+            }
+        }
+        fileObjectService.deleteAll(bucket, missing);
+
+        if (recorded > 0 || !missing.isEmpty()) {
+            log.info("File index of bucket {} reconciled: {} recorded, {} removed", bucket, recorded, missing.size());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.itmo.eventapp.main.minio;
+
+import io.minio.*;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.itmo.eventapp.main.storage.ObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Log4j2
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "minio", matchIfMissing = true)
+public class MinioObjectStorage implements ObjectStorage {
+
+    // столько ключей MinIO принимает в одном запросе на удаление
+    private static final int REMOVE_OBJECTS_BATCH_SIZE = 1000;
+
+    private final MinioClient minioClient;
+
+    @Value("${server.ip:localhost}")
+    private String ip;
+    @Value("${minio.port:9000}")
+    private String minioPort;
+    @Value("${minio.upload-part-size-in-bytes:16777216}")
+    private Long uploadPartSizeInBytes;
+
+    @PostConstruct
+    public void init() {
+        if (uploadPartSizeInBytes < ObjectWriteArgs.MIN_MULTIPART_SIZE) {
+            throw new IllegalStateException("minio.upload-part-size-in-bytes must be at least " + ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public boolean bucketExists(String bucket) {
+        return minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
+    }
+
+    @Override
+    @SneakyThrows
+    public void createBucket(String bucket) {
+        String bucketPolicy = "{\n" +
+                "    \"Statement\": [\n" +
+                "        {\n" +
+                "            \"Action\": \"s3:GetObject\",\n" +
+                "            \"Effect\": \"Allow\",\n" +
+                "            \"Principal\": \"*\",\n" +
+                "            \"Resource\": \"arn:aws:s3:::" + bucket + "/*\"\n" +
+                "        }\n" +
+                "    ],\n" +
+                "    \"Version\": \"2012-10-17\"\n" +
+                "}\n";
+        minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+        minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucket).config(bucketPolicy).build());
+    }
+
+    // объекты больше upload-part-size-in-bytes загружаются multipart загрузкой частями этого размера
+    @Override
+    @SneakyThrows
+    public StoredObject put(String bucket, String key, InputStream stream, long size, String contentType, Map<String, String> headers) {
+        long partSize = uploadPartSizeInBytes;
+        if (size > 0) {
+            // в multipart загрузке не больше MAX_MULTIPART_COUNT частей
+            partSize = Math.max(partSize, (size + ObjectWriteArgs.MAX_MULTIPART_COUNT - 1) / ObjectWriteArgs.MAX_MULTIPART_COUNT);
+        }
+        PutObjectArgs.Builder args = PutObjectArgs.builder()
+                .stream(stream, size, partSize)
+                .bucket(bucket)
+                .object(key)
+                .headers(headers);
+        if (contentType != null) {
+            args.contentType(contentType);
+        }
+        ObjectWriteResponse response = minioClient.putObject(args.build());
+        if (size < 0) {
+            return stat(bucket, key).orElseThrow();
+        }
+        return new StoredObject(key, size, contentType, response.etag(), null);
+    }
+
+    @Override
+    @SneakyThrows
+    public InputStream get(String bucket, String key) {
+        return minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(key).build());
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<StoredObject> stat(String bucket, String key) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(key).build());
+            return Optional.of(new StoredObject(key, stat.size(), stat.contentType(), stat.etag(),
+                    stat.lastModified().withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()));
+        } catch (ErrorResponseException e) {
+            String code = e.errorResponse().code();
+            if ("NoSuchKey".equals(code) || "NoSuchBucket".equals(code)) {
+                return Optional.empty();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public List<StoredObject> list(String bucket, String prefix) {
+        List<StoredObject> objects = new ArrayList<>();
+        Iterable<Result<Item>> results = minioClient.listObjects(
+                ListObjectsArgs.builder().bucket(bucket).prefix(prefix).recursive(true).build());
+        for (Result<Item> result : results) {
+            Item item = result.get();
+            if (!item.isDir()) {
+                objects.add(new StoredObject(item.objectName(), item.size(), null, item.etag(),
+                        item.lastModified().withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()));
+            }
+        }
+        return objects;
+    }
+
+    @Override
+    @SneakyThrows
+    public String copy(String sourceBucket, String sourceKey, String bucket, String key) {
+        return minioClient.copyObject(
+                CopyObjectArgs.builder()
+                        .source(CopySource.builder().bucket(sourceBucket).object(sourceKey).build())
+                        .bucket(bucket)
+                        .object(key)
+                        .build()
+        ).etag();
+    }
+
+    /**
+     * Удаляет объекты пачками по REMOVE_OBJECTS_BATCH_SIZE ключей за запрос
+     */
+    @Override
+    @SneakyThrows
+    public List<String> delete(String bucket, List<String> keys) {
+        List<String> failedKeys = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += REMOVE_OBJECTS_BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(from + REMOVE_OBJECTS_BATCH_SIZE, keys.size()));
+            // запрос отправляется при обходе результата, в нем только ошибки удаления
+            Iterable<Result<DeleteError>> results = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(bucket)
+                    .objects(batch.stream().map(DeleteObject::new).toList())
+                    .build());
+            for (Result<DeleteError> result : results) {
+                DeleteError error = result.get();
+                log.warn("Failed to delete object {} from bucket {}: {}", error.objectName(), bucket, error.message());
+                failedKeys.add(error.objectName());
+            }
+        }
+        return failedKeys;
+    }
+
+    @Override
+    @SneakyThrows
+    public String getPresignedUrl(HttpMethod method, String bucket, String key, int expiryInSeconds) {
+        return minioClient.getPresignedObjectUrl(
+                GetPresignedObjectUrlArgs.builder()
+                        .method(Method.valueOf(method.name()))
+                        .bucket(bucket)
+                        .object(key)
+                        .expiry(expiryInSeconds)
+                        .build());
+    }
+
+    @Override
+    public String getPublicUrl(String bucket, String key) {
+        String url = "http://" + ip + ":" + minioPort + "/" + bucket + "/" + key;
+        log.debug("unsigned url: {}", url);
+        return url;
+    }
+}
@@ -1,62 +1,151 @@
 package org.itmo.eventapp.main.minio;
 
-import io.minio.*;
 import io.minio.errors.MinioException;
-import io.minio.http.Method;
-import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.log4j.Log4j2;
 import org.itmo.eventapp.main.model.dto.response.FileDataResponse;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.itmo.eventapp.main.repository.FileTombstoneRepository;
+import org.itmo.eventapp.main.service.FileObjectService;
+import org.itmo.eventapp.main.storage.ObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Log4j2
 @RequiredArgsConstructor
 @Service
 public class MinioService {
-    private final MinioClient minioClient;
+    private final ObjectStorage storage;
+    private final PresignedUrlCache presignedUrlCache;
+    private final FileObjectService fileObjectService;
+    private final FileTombstoneRepository fileTombstoneRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${server.ip:localhost}")
-    private String ip;
-    @Value("${minio.port:9000}")
-    private String minioPort;
+    @Value("${minio.presigned-upload-expiry-in-seconds:900}")
+    private Integer presignedUploadExpiryInSeconds;
+    @Value("${minio.concurrency:4}")
+    private Integer concurrency;
+    @Value("${minio.zip.prefetch:4}")
+    private Integer zipPrefetch;
 
-    @SneakyThrows
-    private void createBucketIfNotExists(String bucketName) {
-
-        String bucketPolicy = "{\n" +
-                "    \"Statement\": [\n" +
-                "        {\n" +
-                "            \"Action\": \"s3:GetObject\",\n" +
-                "            \"Effect\": \"Allow\",\n" +
-                "            \"Principal\": \"*\",\n" +
-                "            \"Resource\": \"arn:aws:s3:::" + bucketName + "/*\"\n" +
-                "        }\n" +
-                "    ],\n" +
-                "    \"Version\": \"2012-10-17\"\n" +
-                "}\n";
-        try {
-            if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build())) {
-                minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build());
-                minioClient.setBucketPolicy(SetBucketPolicyArgs.builder().bucket(bucketName).config(bucketPolicy).build());
+    @Value("${minio.buckets:task-objects,event-images,event-participants}")
+    private Set<String> knownBuckets;
+
+    // имена объектов с содержимым файлов, новое содержимое файла всегда пишется в новый объект
+    static final String BLOB_KEY_PREFIX = "blob_";
+
+    private final Set<String> provisionedBuckets = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "minio-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Публикуется в транзакции, после которой на объекты хранилища больше не ссылается ни один файл.
+     * Объекты удаляются после коммита, чтобы откат транзакции не оставил файлы без содержимого
+     */
+    public record UnreferencedObjects(String bucket, List<String> objects) {
+    }
+
+    /**
+     * Создает известные приложению бакеты с их политиками один раз при старте,
+     * чтобы операции с файлами не проверяли существование бакета каждым запросом
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionBuckets() {
+        for (String bucketName : knownBuckets) {
+            try {
+                createBucketIfNotExists(bucketName);
+            } catch (Exception ex) {
+                // бакет будет создан при первом обращении
+                log.warn("Failed to provision bucket {}: {}", bucketName, ex.getMessage());
+            }
+        }
+    }
+
+    private void createBucketIfNotExists(String bucketName) throws MinioException {
+        if (provisionedBuckets.contains(bucketName)) {
+            return;
+        }
 
+        try {
+            if (!storage.bucketExists(bucketName)) {
+                storage.createBucket(bucketName);
             }
         } catch (Exception ex) {
             throw new MinioException(ex.getMessage());
 
         }
+        // неизвестные бакеты не запоминаются, их могут удалить в обход приложения
+        if (knownBuckets.contains(bucketName)) {
+            provisionedBuckets.add(bucketName);
+        }
     }
 
-    private String getUnsignedUrl(String bucketName, String objectName) {
-        String url = "http://" + ip + ":" + minioPort + "/" + bucketName + "/" + objectName;
-        log.debug("unsigned url: {}", url);
-        return url;
+    private boolean bucketExists(String bucketName) {
+        return provisionedBuckets.contains(bucketName) || storage.bucketExists(bucketName);
+    }
+
+    public String getUnsignedUrl(String bucketName, String objectName) {
+        return storage.getPublicUrl(bucketName, objectName);
+    }
+
+    private String getPresignedDownloadUrl(String bucketName, String objectName) {
+        return storage.getPresignedUrl(HttpMethod.GET, bucketName, objectName, presignedUrlCache.getExpiryInSeconds());
     }
 
     @SneakyThrows
@@ -64,11 +153,9 @@ public class MinioService {
 
         createBucketIfNotExists(bucketName);
 
-        minioClient.putObject(PutObjectArgs.builder()
-                .stream(multipartFile.getInputStream(), multipartFile.getInputStream().available(), -1)
-                .bucket(bucketName)
-                .object(multipartFile.getOriginalFilename())
-                .build());
+        try (InputStream stream = multipartFile.getInputStream()) {
+            putObject(stream, multipartFile.getSize(), multipartFile.getContentType(), bucketName, multipartFile.getOriginalFilename());
+        }
     }
 
     @SneakyThrows
@@ -77,77 +164,325 @@ public class MinioService {
 
         createBucketIfNotExists(bucketName);
 
-        minioClient.putObject(PutObjectArgs.builder()
-                .stream(multipartFile.getInputStream(), multipartFile.getInputStream().available(), -1)
-                .bucket(bucketName)
-                .object(fileName)
-                .contentType(multipartFile.getContentType())
-                .build());
+        try (InputStream stream = multipartFile.getInputStream()) {
+            putObject(stream, multipartFile.getSize(), multipartFile.getContentType(), bucketName, fileName);
+        }
     }
 
+    /**
+     * Загружает несколько файлов одновременно, не более concurrency за раз.
+     *
+     * @param files файлы по именам объектов в хранилище
+     */
     @SneakyThrows
-    public void delete(String bucket, String object) {
-        minioClient.removeObject(
-                RemoveObjectArgs.builder()
-                        .bucket(bucket)
-                        .object(object)
-                        .build()
-        );
+    public void uploadAllWithModifiedFileNames(Map<String, MultipartFile> files, String bucketName) {
+        if (files.isEmpty()) return;
+
+        createBucketIfNotExists(bucketName);
+
+        List<CompletableFuture<Void>> uploads = files.entrySet().stream()
+                .map(file -> CompletableFuture.runAsync(
+                        () -> uploadWithModifiedFileName(file.getValue(), bucketName, file.getKey()), executor))
+                .toList();
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Загружает объект прямо из потока запроса, не сохраняя его во временный файл.
+     *
+     * @param size размер объекта, -1 если неизвестен
+     */
+    @SneakyThrows
+    public void uploadStream(InputStream stream, long size, String contentType, String bucketName, String fileName) {
+
+        createBucketIfNotExists(bucketName);
+
+        putObject(stream, size, contentType, bucketName, fileName);
+    }
+
+    /**
+     * Загружает объект из памяти
+     *
+     * @param headers заголовки, которые хранилище отдает вместе с объектом, например Cache-Control
+     */
+    @SneakyThrows
+    public void uploadBytes(byte[] bytes, String contentType, Map<String, String> headers, String bucketName, String fileName) {
+
+        createBucketIfNotExists(bucketName);
+
+        putObject(new ByteArrayInputStream(bytes), bytes.length, contentType, headers, bucketName, fileName);
+    }
+
+    @SneakyThrows
+    public byte[] download(String bucketName, String fileName) {
+        try (InputStream stream = storage.get(bucketName, getBlobKey(bucketName, fileName))) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private void putObject(InputStream stream, long size, String contentType, String bucketName, String objectName) {
+        putObject(stream, size, contentType, Map.of(), bucketName, objectName);
+    }
+
+    /**
+     * Содержимое файла записывается в новый объект вне транзакции, поэтому медленная загрузка не держит соединение с БД.
+     * Затем в короткой транзакции под блокировкой файл переводится на новый объект, а копии файла сохраняют прежнее содержимое
+     */
+    private void putObject(InputStream stream, long size, String contentType, Map<String, String> headers,
+                           String bucketName, String objectName) {
+        if (!fileObjectService.isIndexed(bucketName, objectName)) {
+            storage.put(bucketName, objectName, stream, size, contentType, headers);
+            presignedUrlCache.invalidate(bucketName, objectName);
+            return;
+        }
+        String blobKey = newBlobKey();
+        StoredObject stored = storage.put(bucketName, blobKey, stream, size, contentType, headers);
+        recordBlob(bucketName, objectName, blobKey, stored.size(), contentType, stored.etag(), List.of());
+    }
+
+    private String newBlobKey() {
+        return BLOB_KEY_PREFIX + UUID.randomUUID();
+    }
+
+    /**
+     * Переводит файл object на уже записанный объект blobKey. Прежнее содержимое файла и объекты releasedObjects
+     * удаляются после коммита, если на них больше не ссылается ни один файл.
+     * Если записать файл не удалось, объект blobKey удаляется
+     */
+    private void recordBlob(String bucket, String object, String blobKey, long size, String contentType, String etag,
+                            Collection<String> releasedObjects) {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Set<String> replacedBlobKeys = new LinkedHashSet<>(releasedObjects);
+                replacedBlobKeys.addAll(lockFiles(bucket, List.of(object)));
+                fileObjectService.record(bucket, object, blobKey, size, contentType, etag, LocalDateTime.now());
+                deleteUnreferenced(bucket, replacedBlobKeys);
+            });
+        } catch (RuntimeException e) {
+            deleteObjectsQuietly(bucket, List.of(blobKey));
+            throw e;
+        }
+        presignedUrlCache.invalidate(bucket, object);
+    }
+
+    /**
+     * Блокирует до конца транзакции файлы objects и объекты с их содержимым.
+     * Содержимое файла могло смениться, пока транзакция ждала блокировку, тогда блокируется и новый объект
+     *
+     * @return объекты с содержимым файлов под блокировкой
+     */
+    private List<String> lockFiles(String bucket, Collection<String> objects) {
+        Set<String> locked = new HashSet<>();
+        while (true) {
+            List<String> blobKeys = fileObjectService.getBlobKeys(bucket, objects);
+            Set<String> keys = new HashSet<>(objects);
+            keys.addAll(blobKeys);
+            keys.removeAll(locked);
+            if (keys.isEmpty() || !fileObjectService.isIndexed(bucket)) {
+                return blobKeys;
+            }
+            fileObjectService.lockBlobs(bucket, keys);
+            locked.addAll(keys);
+        }
+    }
+
+    /**
+     * Объект хранилища с содержимым файла, копии файла ссылаются на тот же объект
+     */
+    public String getBlobKey(String bucket, String object) {
+        if (!fileObjectService.isIndexed(bucket)) {
+            return object;
+        }
+        return fileObjectService.getFile(bucket, object).map(FileObject::getBlobKey).orElse(object);
+    }
+
+    /**
+     * Объект object перезаписывается клиентом по подписанной ссылке. Если на него ссылаются файлы, например
+     * записанные до появления отдельных объектов с содержимым, они переводятся на копию объекта.
+     * Копия создается вне транзакции, в транзакции под блокировкой меняются только ссылки
+     */
+    private void releaseObject(String bucket, String object) {
+        if (fileObjectService.getReferencedBlobKeys(bucket, List.of(object)).isEmpty()) {
+            return;
+        }
+        String blobKey = newBlobKey();
+        storage.copy(bucket, object, bucket, blobKey);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            lockFiles(bucket, List.of(object));
+            if (fileObjectService.moveReferences(bucket, object, blobKey) == 0) {
+                // ссылки уже переведены параллельным запросом
+                eventPublisher.publishEvent(new UnreferencedObjects(bucket, List.of(blobKey)));
+            }
+        });
+    }
+
+    /**
+     * Удаляет после коммита объекты, на которые не ссылается ни один файл.
+     * Новые ссылки создаются под блокировкой объекта, поэтому до конца транзакции проверка не устаревает
+     */
+    private void deleteUnreferenced(String bucket, Collection<String> blobKeys) {
+        fileObjectService.lockBlobs(bucket, blobKeys);
+        Set<String> referenced = fileObjectService.getReferencedBlobKeys(bucket, blobKeys);
+        List<String> unreferenced = blobKeys.stream().filter(blobKey -> !referenced.contains(blobKey)).distinct().toList();
+        if (!unreferenced.isEmpty()) {
+            eventPublisher.publishEvent(new UnreferencedObjects(bucket, unreferenced));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUnreferencedObjects(UnreferencedObjects event) {
+        deleteObjectsQuietly(event.bucket(), event.objects());
+    }
+
+    /**
+     * Оставшиеся объекты с содержимым удалит {@link FileGarbageCollector}
+     */
+    private void deleteObjectsQuietly(String bucket, List<String> objects) {
+        try {
+            deleteObjects(bucket, objects);
+        } catch (Exception e) {
+            log.warn("Failed to delete objects {} from bucket {}: {}", objects, bucket, e.getMessage());
+        }
     }
 
     @SneakyThrows
-    public void deleteImageByPrefix(String bucket, String prefix) {
-        boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
-        if (!found) {
+    private void deleteObjects(String bucket, List<String> objects) {
+        if (objects.isEmpty()) {
             return;
         }
-        Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucket).prefix(prefix).build());
-        Iterator<Result<Item>> iterator = results.iterator();
-        while (iterator.hasNext()) {
-            Item item = iterator.next().get();
-            minioClient.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(item.objectName()).build());
+        List<String> failedObjects = storage.delete(bucket, objects);
+        objects.forEach(object -> presignedUrlCache.invalidate(bucket, object));
+        if (!failedObjects.isEmpty()) {
+            throw new MinioException("Error deleting objects: " + failedObjects);
         }
     }
 
+    public int getPresignedUploadExpiryInSeconds() {
+        return presignedUploadExpiryInSeconds;
+    }
+
+    /**
+     * Ссылка, по которой клиент сам загружает объект в хранилище PUT запросом, минуя приложение.
+     * До подтверждения загрузки файл и его копии ссылаются на прежнее содержимое
+     */
     @SneakyThrows
-    public List<String> getFileNamesByPrefix(String bucket, String prefix) {
-        List<String> filenames = new ArrayList<>();
-        boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
-        if (!found) {
-            return filenames;
+    public String getPresignedUploadUrl(String bucketName, String objectName) {
+        createBucketIfNotExists(bucketName);
+        if (fileObjectService.isIndexed(bucketName, objectName)) {
+            releaseObject(bucketName, objectName);
         }
+        presignedUrlCache.invalidate(bucketName, objectName);
+        return storage.getPresignedUrl(HttpMethod.PUT, bucketName, objectName, presignedUploadExpiryInSeconds);
+    }
+
+    /**
+     * Проверяет, что клиент загрузил объект по подписанной ссылке, и сохраняет его метаданные.
+     * Загруженное содержимое копируется в отдельный объект, чтобы следующая загрузка по ссылке не изменила копии файла
+     *
+     * @return false, если объекта нет в хранилище
+     */
+    public boolean confirmUpload(String bucket, String object) {
+        Optional<StoredObject> uploaded = storage.stat(bucket, object);
+        if (uploaded.isEmpty()) {
+            return false;
+        }
+        if (!fileObjectService.isIndexed(bucket, object)) {
+            return true;
+        }
+        String blobKey = newBlobKey();
+        storage.copy(bucket, object, bucket, blobKey);
+        StoredObject stored = storage.stat(bucket, blobKey).orElseThrow();
+        recordBlob(bucket, object, blobKey, stored.size(), uploaded.get().contentType(), stored.etag(), List.of(object));
+        return true;
+    }
+
+    public void delete(String bucket, String object) {
+        deleteAll(bucket, List.of(object));
+    }
+
+    /**
+     * Удаляет файлы, а их содержимое - когда на него больше не ссылается ни один файл
+     */
+    public void deleteAll(String bucket, List<String> objects) {
+        if (objects.isEmpty()) {
+            return;
+        }
+        if (!fileObjectService.isIndexed(bucket)) {
+            deleteObjects(bucket, objects);
+            return;
+        }
+        // параллельная копия не сошлется на удаляемое содержимое: она ждет блокировку до конца удаления,
+        // а само содержимое удаляется из хранилища уже после коммита
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // объекты без записи в индексе, например не подтвержденные загрузки, тоже удаляются
+            Set<String> blobKeys = new LinkedHashSet<>(objects);
+            blobKeys.addAll(lockFiles(bucket, objects));
+            fileObjectService.deleteAll(bucket, objects);
+            deleteUnreferenced(bucket, blobKeys);
+        });
+    }
+
+    /**
+     * Удаляет все файлы владельцев ownerIds. В отличие от префикса "1" не затрагивает файлы владельца 10
+     */
+    public void deleteByOwners(String bucket, Collection<Integer> ownerIds) {
+        Set<Integer> owners = Set.copyOf(ownerIds);
+        List<String> objects = getFileNamesByPrefixes(bucket, owners.stream().map(String::valueOf).toList()).stream()
+                .filter(object -> owners.contains(fileObjectService.getOwnerId(object)))
+                .toList();
+        deleteAll(bucket, objects);
+    }
+
+    /**
+     * Имена объектов хранилища и файлов индекса с заданными префиксами
+     */
+    @SneakyThrows
+    private Set<String> getFileNamesByPrefixes(String bucket, List<String> prefixes) {
+        Set<String> objects = new LinkedHashSet<>();
+        if (prefixes.isEmpty() || !bucketExists(bucket)) {
+            return objects;
+        }
+        List<CompletableFuture<List<String>>> listings = prefixes.stream()
+                .map(prefix -> CompletableFuture.supplyAsync(() -> getFileNamesByPrefix(bucket, prefix), executor))
+                .toList();
         try {
-            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucket).prefix(prefix).build());
-            for (Result<Item> result : results) {
-                filenames.add(result.get().objectName());
+            for (CompletableFuture<List<String>> listing : listings) {
+                objects.addAll(listing.join());
             }
-        } catch (Exception e) {
-            throw new MinioException("Error getting filenames: " + e.getMessage());
+        } catch (CompletionException e) {
+            throw e.getCause();
         }
-        return filenames;
+        // копии файлов хранятся только в индексе
+        for (String prefix : prefixes) {
+            fileObjectService.getFilesByPrefix(bucket, prefix).forEach(file -> objects.add(file.getObjectKey()));
+        }
+        return objects;
     }
 
+    /**
+     * Удаляет файлы владельцев в фоне: записи file_tombstone сохраняются в текущей транзакции,
+     * а файлы удаляет {@link FileGarbageCollector} после ее коммита
+     */
+    public void deleteFilesLater(FileOwnerType ownerType, Collection<Integer> ownerIds) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Integer ownerId : ownerIds) {
+            fileTombstoneRepository.insert(ownerType.name(), ownerId, now);
+        }
+    }
 
     @SneakyThrows
-    public List<FileDataResponse> getFileDataByPrefix(String bucket, String prefix) {
-        List<FileDataResponse> filenames = new ArrayList<>();
-        boolean found = minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build());
-        if (!found) {
+    public List<String> getFileNamesByPrefix(String bucket, String prefix) {
+        List<String> filenames = new ArrayList<>();
+        if (!bucketExists(bucket)) {
             return filenames;
         }
         try {
-            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder().bucket(bucket).prefix(prefix).build());
-            for (Result<Item> result : results) {
-                String filename = result.get().objectName();
-                String presignedUrl = minioClient.getPresignedObjectUrl(
-                        GetPresignedObjectUrlArgs.builder()
-                                .method(Method.GET)
-                                .bucket(bucket)
-                                .object(filename)
-                                .expiry(60 * 60 * 24)
-                                .build());
-                String unsignedUrl = getUnsignedUrl(bucket, filename);
-                filenames.add(new FileDataResponse(filename, presignedUrl, unsignedUrl));
+            for (StoredObject object : storage.list(bucket, prefix)) {
+                filenames.add(object.key());
             }
         } catch (Exception e) {
             throw new MinioException("Error getting filenames: " + e.getMessage());
@@ -155,27 +490,124 @@ public class MinioService {
         return filenames;
     }
 
+
+    /**
+     * Пишет объекты в ZIP архив прямо из хранилища, не сохраняя их во временные файлы.
+     * Пока текущий объект пишется в архив, следующие zip-prefetch объектов уже открываются параллельно.
+     * Объекты, которые не удалось открыть, пропускаются
+     *
+     * @param objects имена объектов хранилища по именам файлов в архиве
+     */
+    public void writeZip(String bucket, Map<String, String> objects, OutputStream output) throws IOException {
+        List<Map.Entry<String, String>> entries = List.copyOf(objects.entrySet());
+        Deque<CompletableFuture<InputStream>> opened = new ArrayDeque<>();
+        int next = 0;
+        // закрытие архива освобождает его Deflater, поток ответа закрывает вызывающий код
+        try (ZipOutputStream zip = new ZipOutputStream(StreamUtils.nonClosing(output))) {
+            // изображения и документы обычно уже сжаты, сильное сжатие только тратит время процессора
+            zip.setLevel(Deflater.BEST_SPEED);
+            for (Map.Entry<String, String> entry : entries) {
+                for (; next < entries.size() && opened.size() < zipPrefetch; next++) {
+                    String object = entries.get(next).getValue();
+                    opened.add(CompletableFuture.supplyAsync(() -> storage.get(bucket, object), executor));
+                }
+                InputStream stream;
+                try {
+                    stream = opened.poll().join();
+                } catch (CompletionException e) {
+                    log.warn("Failed to add object {} from bucket {} to zip: {}", entry.getValue(), bucket, e.getCause().getMessage());
+                    continue;
+                }
+                try (stream) {
+                    zip.putNextEntry(new ZipEntry(entry.getKey()));
+                    stream.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+        } finally {
+            // если запись прервалась, например клиент отменил скачивание, закрываются объекты, открытые заранее
+            for (CompletableFuture<InputStream> stream : opened) {
+                stream.thenAccept(this::closeQuietly);
+            }
+        }
+    }
+
+    private void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            log.debug("Failed to close object stream: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Подписанная ссылка на скачивание объекта из кэша ссылок
+     */
+    public String getDownloadUrl(String bucket, String object) {
+        return presignedUrlCache.get(bucket, object, () -> getPresignedDownloadUrl(bucket, object));
+    }
+
+    /**
+     * Ссылки на скачивание файлов из индекса file_object, без обращения к списку объектов хранилища
+     */
+    public List<FileDataResponse> getFileData(List<FileObject> files) {
+        return files.stream()
+                .map(file -> new FileDataResponse(
+                        file.getObjectKey(),
+                        getDownloadUrl(file.getBucket(), file.getBlobKey()),
+                        getUnsignedUrl(file.getBucket(), file.getBlobKey()),
+                        file.getSize(),
+                        file.getCreatedTime()))
+                .toList();
+    }
+
+    /**
+     * Копирует файл внутри индексируемого бакета. Содержимое оригинала не удаляется, пока на него создается ссылка
+     */
+    private void copyReference(String bucket, String sourceObject, String object) {
+        lockFiles(bucket, List.of(sourceObject, object));
+        List<String> replacedBlobKeys = fileObjectService.getBlobKeys(bucket, List.of(object));
+        // если оригинал удален, пока копия ждала блокировку, копия не создается
+        if (fileObjectService.recordReference(bucket, sourceObject, object)) {
+            deleteUnreferenced(bucket, replacedBlobKeys);
+        }
+    }
+
+    /**
+     * Копирует файлы с префиксом sourcePrefix. Если префикс начинается с id владельца, копируются только файлы
+     * этого владельца: префикс "1" не задевает файлы мероприятия 10 и его копии изображения "12_thumbnail_...".
+     * Копия внутри индексируемого бакета - только запись в индексе, которая ссылается на содержимое оригинала
+     */
     @SneakyThrows
     public void copyImagesWithPrefix(String sourceBucket, String destinationBucket, String sourcePrefix, String destinationPrefix) {
+        Integer ownerId = fileObjectService.getOwnerId(sourcePrefix);
+        Predicate<String> ofOwner = object -> ownerId == null || ownerId.equals(fileObjectService.getOwnerId(object));
+        if (sourceBucket.equals(destinationBucket) && fileObjectService.isIndexed(sourceBucket)) {
+            for (FileObject file : fileObjectService.getFilesByPrefix(sourceBucket, sourcePrefix)) {
+                if (!ofOwner.test(file.getObjectKey())) {
+                    continue;
+                }
+                String destinationObjectName = destinationPrefix + file.getObjectKey().substring(sourcePrefix.length());
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        copyReference(sourceBucket, file.getObjectKey(), destinationObjectName));
+            }
+            return;
+        }
 
         createBucketIfNotExists(sourceBucket);
         createBucketIfNotExists(destinationBucket);
 
         try {
-            Iterable<Result<Item>> results = minioClient.listObjects(
-                    ListObjectsArgs.builder().bucket(sourceBucket).prefix(sourcePrefix).build()
-            );
-            for (Result<Item> result : results) {
-                Item item = result.get();
-                String sourceObjectName = item.objectName();
+            for (StoredObject object : storage.list(sourceBucket, sourcePrefix)) {
+                String sourceObjectName = object.key();
+                if (!ofOwner.test(sourceObjectName)) {
+                    continue;
+                }
                 String destinationObjectName = destinationPrefix + sourceObjectName.substring(sourcePrefix.length());
-                minioClient.copyObject(
-                        CopyObjectArgs.builder()
-                                .source(CopySource.builder().bucket(sourceBucket).object(sourceObjectName).build())
-                                .bucket(destinationBucket)
-                                .object(destinationObjectName)
-                                .build()
-                );
+                String etag = storage.copy(sourceBucket, sourceObjectName, destinationBucket, destinationObjectName);
+                presignedUrlCache.invalidate(destinationBucket, destinationObjectName);
+                fileObjectService.recordCopy(sourceBucket, sourceObjectName, destinationBucket, destinationObjectName,
+                        object.size(), etag);
             }
         } catch (Exception ex) {
             throw new MinioException("Error copying images: " + ex.getMessage());
@@ -0,0 +1,106 @@
+package org.itmo.eventapp.main.minio;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш подписанных ссылок на скачивание объектов.
+ * Ссылка переиспользуется, пока до окончания ее срока действия остается больше refresh-before-expiry-in-seconds.
+ * В кэше не больше max-size ссылок, при переполнении вытесняется давно не запрашивавшаяся.
+ */
+@Log4j2
+@Component
+public class PresignedUrlCache {
+
+    @Value("${minio.presigned-url.expiry-in-seconds:86400}")
+    private Integer expiryInSeconds;
+
+    @Value("${minio.presigned-url.refresh-before-expiry-in-seconds:3600}")
+    private Integer refreshBeforeExpiryInSeconds;
+
+    @Value("${minio.presigned-url.max-size:10000}")
+    private Integer maxSize;
+
+    // порядок доступа: первой идет давно не запрашивавшаяся ссылка
+    private final LinkedHashMap<Key, Entry> urls = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > maxSize;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private record Key(String bucket, String object) {
+    }
+
+    private record Entry(String url, long reuseUntilNanos) {
+    }
+
+    public record Stats(long hits, long misses, int size, double hitRate) {
+    }
+
+    public int getExpiryInSeconds() {
+        return expiryInSeconds;
+    }
+
+    /**
+     * Возвращает ссылку из кэша или подписывает новую
+     *
+     * @param sign подписывает ссылку со сроком действия expiry-in-seconds
+     */
+    public String get(String bucket, String object, Supplier<String> sign) {
+        Key key = new Key(bucket, object);
+        Entry entry;
+        synchronized (urls) {
+            entry = urls.get(key);
+        }
+        if (entry != null && System.nanoTime() - entry.reuseUntilNanos() < 0) {
+            hits.incrementAndGet();
+            return entry.url();
+        }
+        misses.incrementAndGet();
+
+        long reuseUntilNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(expiryInSeconds - refreshBeforeExpiryInSeconds);
+        // ссылка подписывается вне блокировки, чтобы не задерживать остальные запросы
+        String url = sign.get();
+        synchronized (urls) {
+            urls.put(key, new Entry(url, reuseUntilNanos));
+        }
+        return url;
+    }
+
+    public void invalidate(String bucket, String object) {
+        synchronized (urls) {
+            urls.remove(new Key(bucket, object));
+        }
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        synchronized (urls) {
+            return new Stats(hitCount, missCount, urls.size(), total == 0 ? 0 : (double) hitCount / total);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${minio.presigned-url.cleanup-period-in-millis:600000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        synchronized (urls) {
+            urls.values().removeIf(entry -> now - entry.reuseUntilNanos() >= 0);
+        }
+        Stats stats = getStats();
+        log.debug("Presigned url cache: size {}, hits {}, misses {}, hit rate {}",
+                stats.size(), stats.hits(), stats.misses(), String.format("%.2f", stats.hitRate()));
+    }
+}
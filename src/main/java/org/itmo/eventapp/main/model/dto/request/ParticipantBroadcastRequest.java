@@ -0,0 +1,16 @@
+package org.itmo.eventapp.main.model.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public record ParticipantBroadcastRequest(
+    @NotBlank(message = "Поле subject не может быть пустым!")
+    @Size(max = 256, message = "Поле subject не может быть длиннее 256 символов!")
+    @Schema(example = "Изменение места проведения", requiredMode = Schema.RequiredMode.REQUIRED)
+    String subject,
+    @NotBlank(message = "Поле message не может быть пустым!")
+    @Schema(example = "Мероприятие пройдет в аудитории 1404", requiredMode = Schema.RequiredMode.REQUIRED)
+    String message
+) {
+}
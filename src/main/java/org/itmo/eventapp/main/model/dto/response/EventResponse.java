@@ -7,6 +7,7 @@ import org.itmo.eventapp.main.model.entity.enums.EventStatus;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record EventResponse(
@@ -33,6 +34,10 @@ public record EventResponse(
     int participantAgeLowest,
     int participantAgeHighest,
     LocalDateTime preparingStart,
-    LocalDateTime preparingEnd
+    LocalDateTime preparingEnd,
+    @Schema(example = "{\"thumbnail\": \"http://localhost:9000/event-images/1_thumbnail_9f86d081884c7d65.jpg\", " +
+        "\"medium\": \"http://localhost:9000/event-images/1_medium_9f86d081884c7d65.jpg\"}",
+        description = "Ссылки на уменьшенные копии изображения мероприятия")
+    Map<String, String> imageVariants
 ) {
 }
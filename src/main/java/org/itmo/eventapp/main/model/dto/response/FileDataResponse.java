@@ -1,6 +1,10 @@
 package org.itmo.eventapp.main.model.dto.response;
 
+import java.time.LocalDateTime;
+
 public record FileDataResponse(String filename,
                                String presignedUrl,
-                               String unsignedUrl) {
+                               String unsignedUrl,
+                               Long size,
+                               LocalDateTime uploadTime) {
 }
@@ -0,0 +1,18 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+public record FileUploadIntentResponse(
+    @Schema(example = "1_report__2024-04-01T12:00:00.000.pdf", requiredMode = Schema.RequiredMode.REQUIRED)
+    String filename,
+
+    @Schema(example = "http://localhost:9000/task-objects/1_report__2024-04-01T12%3A00%3A00.000.pdf?X-Amz-Signature=...",
+        requiredMode = Schema.RequiredMode.REQUIRED)
+    String uploadUrl,
+
+    @Schema(example = "2024-04-01T12:15:00", requiredMode = Schema.RequiredMode.REQUIRED)
+    LocalDateTime expiresAt
+) {
+}
@@ -0,0 +1,12 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record FilesSummaryResponse(
+    @Schema(example = "3", requiredMode = Schema.RequiredMode.REQUIRED)
+    long count,
+
+    @Schema(example = "1048576", description = "Суммарный размер файлов в байтах", requiredMode = Schema.RequiredMode.REQUIRED)
+    long totalSize
+) {
+}
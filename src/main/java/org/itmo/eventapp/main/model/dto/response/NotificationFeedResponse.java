@@ -0,0 +1,14 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record NotificationFeedResponse(
+    List<NotificationResponse> items,
+    @Schema(description = "Курсор следующей страницы, null если уведомлений больше нет", example = "MjAyNC0wMS0wMVQxMjozNDo1Nl8xNQ")
+    String nextCursor,
+    @Schema(description = "Общее число уведомлений, null если подсчет не запрашивался", example = "42")
+    Long total
+) {
+}
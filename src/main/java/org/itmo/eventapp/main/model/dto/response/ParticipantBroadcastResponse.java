@@ -0,0 +1,39 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.itmo.eventapp.main.model.entity.enums.ParticipantBroadcastStatus;
+
+import java.time.LocalDateTime;
+
+public record ParticipantBroadcastResponse(
+    @Schema(example = "12", requiredMode = Schema.RequiredMode.REQUIRED)
+    Integer id,
+
+    @Schema(example = "34", requiredMode = Schema.RequiredMode.REQUIRED)
+    Integer eventId,
+
+    @Schema(example = "Изменение места проведения", requiredMode = Schema.RequiredMode.REQUIRED)
+    String subject,
+
+    @Schema(example = "IN_PROGRESS", requiredMode = Schema.RequiredMode.REQUIRED)
+    ParticipantBroadcastStatus status,
+
+    @Schema(example = "500", requiredMode = Schema.RequiredMode.REQUIRED)
+    Integer total,
+
+    @Schema(example = "120", requiredMode = Schema.RequiredMode.REQUIRED)
+    long pending,
+
+    @Schema(example = "378", requiredMode = Schema.RequiredMode.REQUIRED)
+    long sent,
+
+    @Schema(example = "2", requiredMode = Schema.RequiredMode.REQUIRED)
+    long failed,
+
+    @Schema(example = "2024-04-01T12:00:00", requiredMode = Schema.RequiredMode.REQUIRED)
+    LocalDateTime createdTime,
+
+    @Schema(example = "2024-04-01T12:01:00")
+    LocalDateTime completedTime
+) {
+}
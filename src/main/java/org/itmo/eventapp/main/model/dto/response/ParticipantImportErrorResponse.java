@@ -0,0 +1,12 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record ParticipantImportErrorResponse(
+    @Schema(example = "12", description = "Номер строки в файле, начиная с 1", requiredMode = Schema.RequiredMode.REQUIRED)
+    int row,
+
+    @Schema(example = "Некорректный Email", requiredMode = Schema.RequiredMode.REQUIRED)
+    String message
+) {
+}
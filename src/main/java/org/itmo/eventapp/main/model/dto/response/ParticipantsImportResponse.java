@@ -0,0 +1,17 @@
+package org.itmo.eventapp.main.model.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record ParticipantsImportResponse(
+    @Schema(description = "Участники мероприятия после импорта", requiredMode = Schema.RequiredMode.REQUIRED)
+    List<ParticipantResponse> participants,
+
+    @Schema(example = "3", description = "Число пропущенных строк с ошибками", requiredMode = Schema.RequiredMode.REQUIRED)
+    int skippedCount,
+
+    @Schema(description = "Ошибки в строках файла, не больше participants.import-max-errors", requiredMode = Schema.RequiredMode.REQUIRED)
+    List<ParticipantImportErrorResponse> errors
+) {
+}
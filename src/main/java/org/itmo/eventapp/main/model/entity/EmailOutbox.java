@@ -0,0 +1,43 @@
+package org.itmo.eventapp.main.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    private String recipient;
+
+    private String subject;
+
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    private EmailOutboxStatus status;
+
+    private Integer attempts;
+
+    private LocalDateTime createdTime;
+
+    private LocalDateTime nextAttemptTime;
+
+    private LocalDateTime sentTime;
+
+    private String lastError;
+}
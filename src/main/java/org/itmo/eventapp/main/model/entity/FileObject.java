@@ -0,0 +1,43 @@
+package org.itmo.eventapp.main.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+
+import java.time.LocalDateTime;
+
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class FileObject {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    private FileOwnerType ownerType;
+
+    private Integer ownerId;
+
+    private String bucket;
+
+    private String objectKey;
+
+    private String blobKey;
+
+    private Long size;
+
+    private String contentType;
+
+    private String checksum;
+
+    private LocalDateTime createdTime;
+}
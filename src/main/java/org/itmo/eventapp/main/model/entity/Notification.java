@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
@@ -26,6 +27,8 @@ public class Notification {
 
     private String description;
 
+    // read only: row flag or owner's watermark, writes go through NotificationRepository
+    @Formula("(seen or id <= (select u.notification_seen_watermark from user_t u where u.id = user_id))")
     private boolean seen;
 
     private LocalDateTime sentTime;
@@ -0,0 +1,45 @@
+package org.itmo.eventapp.main.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcType;
+import org.hibernate.dialect.PostgreSQLEnumJdbcType;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+@Builder
+public class ParticipantBroadcastDelivery {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "broadcast_id")
+    private ParticipantBroadcast broadcast;
+
+    private Integer participantId;
+
+    private String recipient;
+
+    private String participantName;
+
+    @Enumerated(EnumType.STRING)
+    @JdbcType(PostgreSQLEnumJdbcType.class)
+    private EmailOutboxStatus status;
+
+    private Integer attempts;
+
+    private LocalDateTime nextAttemptTime;
+
+    private LocalDateTime sentTime;
+
+    private String lastError;
+}
@@ -0,0 +1,7 @@
+package org.itmo.eventapp.main.model.entity.enums;
+
+public enum EmailDigestItemType {
+    INCOMING_TASK,
+    OVERDUE_TASK,
+    REMINDER_TASK
+}
@@ -0,0 +1,7 @@
+package org.itmo.eventapp.main.model.entity.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENT,
+    FAILED
+}
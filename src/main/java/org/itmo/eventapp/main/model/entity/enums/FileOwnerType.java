@@ -0,0 +1,7 @@
+package org.itmo.eventapp.main.model.entity.enums;
+
+public enum FileOwnerType {
+    TASK,
+    EVENT_IMAGE,
+    EVENT_PARTICIPANTS
+}
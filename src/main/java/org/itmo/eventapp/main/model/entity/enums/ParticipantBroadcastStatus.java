@@ -0,0 +1,6 @@
+package org.itmo.eventapp.main.model.entity.enums;
+
+public enum ParticipantBroadcastStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
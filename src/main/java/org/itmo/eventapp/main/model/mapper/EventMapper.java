@@ -11,12 +11,17 @@ import org.itmo.eventapp.main.model.entity.PlaceRow;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public final class EventMapper {
     private EventMapper() {
     }
 
     public static EventResponse eventToEventResponse(Event event) {
+        return eventToEventResponse(event, null);
+    }
+
+    public static EventResponse eventToEventResponse(Event event, Map<String, String> imageVariants) {
         Integer parent = (event.getParent() != null) ? event.getParent().getId() : null;
         List<Integer>  placesIds = new ArrayList<>();
         if(event.getPlaces() != null){
@@ -44,7 +49,8 @@ public final class EventMapper {
             event.getParticipantAgeLowest(),
             event.getParticipantAgeHighest(),
             event.getPreparingStart(),
-            event.getPreparingEnd()
+            event.getPreparingEnd(),
+            imageVariants
         );
     }
 
@@ -116,6 +122,12 @@ public final class EventMapper {
             .toList();
     }
 
+    public static List<EventResponse> eventsToEventResponseList(List<Event> events, Map<Integer, Map<String, String>> imageVariants) {
+        return events.stream()
+            .map(event -> eventToEventResponse(event, imageVariants.getOrDefault(event.getId(), Map.of())))
+            .toList();
+    }
+
     public static Event eventToEvent(Event source, Event parentEvent) {
         if (source == null) {
             return null;
@@ -1,7 +1,9 @@
 package org.itmo.eventapp.main.model.mapper;
 
+import org.itmo.eventapp.main.model.dto.response.ParticipantBroadcastResponse;
 import org.itmo.eventapp.main.model.dto.response.ParticipantResponse;
 import org.itmo.eventapp.main.model.entity.Participant;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcast;
 
 import java.util.List;
 
@@ -26,4 +28,20 @@ public final class ParticipantMapper {
             .map(ParticipantMapper::participantToResponse)
             .toList();
     }
+
+    public static ParticipantBroadcastResponse participantBroadcastToResponse(ParticipantBroadcast broadcast,
+                                                                              long pending, long sent, long failed) {
+        return new ParticipantBroadcastResponse(
+            broadcast.getId(),
+            broadcast.getEvent().getId(),
+            broadcast.getSubject(),
+            broadcast.getStatus(),
+            broadcast.getTotal(),
+            pending,
+            sent,
+            failed,
+            broadcast.getCreatedTime(),
+            broadcast.getCompletedTime()
+        );
+    }
 }
@@ -0,0 +1,23 @@
+package org.itmo.eventapp.main.repository;
+
+import org.itmo.eventapp.main.model.entity.EmailDigestItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailDigestItemRepository extends JpaRepository<EmailDigestItem, Integer> {
+
+    @Query(value = "select recipient from email_digest_item group by recipient " +
+        "having min(created_time) <= :time limit :limit", nativeQuery = true)
+    List<String> findRecipientsWithItemsCreatedBefore(LocalDateTime time, Integer limit);
+
+    /**
+     * Deletes and returns all items of the recipient, concurrent callers get each item only once
+     */
+    @Query(value = "delete from email_digest_item where recipient = :recipient returning *", nativeQuery = true)
+    List<EmailDigestItem> deleteAllByRecipientReturning(String recipient);
+}
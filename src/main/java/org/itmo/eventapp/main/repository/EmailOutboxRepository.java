@@ -0,0 +1,58 @@
+package org.itmo.eventapp.main.repository;
+
+import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.entity.EmailOutbox;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Integer> {
+
+    /**
+     * Claims due pending emails: they stay PENDING but become invisible to other workers until leaseUntil,
+     * so emails of a crashed worker are picked up again after the lease expires
+     */
+    @Transactional
+    @Query(value = "update email_outbox set attempts = attempts + 1, next_attempt_time = :leaseUntil " +
+        "where id in (select id from email_outbox where status = 'PENDING' and next_attempt_time <= :now " +
+        "order by next_attempt_time limit :batchSize for update skip locked) " +
+        "returning *", nativeQuery = true)
+    List<EmailOutbox> claimBatch(LocalDateTime now, LocalDateTime leaseUntil, Integer batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update email_outbox set status = 'SENT', sent_time = :sentTime, last_error = null where id in :ids", nativeQuery = true)
+    void markSent(Collection<Integer> ids, LocalDateTime sentTime);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update email_outbox set status = cast(:status as email_outbox_status), next_attempt_time = :nextAttemptTime, " +
+        "last_error = :lastError where id = :id", nativeQuery = true)
+    void markFailedAttempt(Integer id, String status, LocalDateTime nextAttemptTime, String lastError);
+
+    /**
+     * Returns claimed emails to the queue without counting the attempt, used when no SMTP connection was free to send them
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update email_outbox set attempts = greatest(attempts - 1, 0), next_attempt_time = :nextAttemptTime " +
+        "where id in :ids", nativeQuery = true)
+    void releaseClaim(Collection<Integer> ids, LocalDateTime nextAttemptTime);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    @Query("SELECT min(e.createdTime) FROM EmailOutbox e WHERE e.status = 'PENDING'")
+    LocalDateTime findOldestPendingCreatedTime();
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from email_outbox where status = 'SENT' and sent_time < :time", nativeQuery = true)
+    void deleteSentBefore(LocalDateTime time);
+}
@@ -2,11 +2,16 @@ package org.itmo.eventapp.main.repository;
 
 import org.itmo.eventapp.main.model.entity.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface EventRepository extends JpaRepository<Event, Integer> {
     List<Event> findAllByParent_Id(Integer parentId);
+
+    @Query("SELECT e.id FROM Event e WHERE e.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
 }
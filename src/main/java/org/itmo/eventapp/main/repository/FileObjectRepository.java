@@ -0,0 +1,104 @@
+package org.itmo.eventapp.main.repository;
+
+import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FileObjectRepository extends JpaRepository<FileObject, Integer> {
+
+    /**
+     * Number of files of the owner and their total size in bytes
+     */
+    interface FilesSummary {
+        long getCount();
+
+        long getTotalSize();
+    }
+
+    List<FileObject> findAllByOwnerTypeAndOwnerIdOrderByCreatedTimeAsc(FileOwnerType ownerType, Integer ownerId);
+
+    List<FileObject> findAllByOwnerTypeAndOwnerIdIn(FileOwnerType ownerType, Collection<Integer> ownerIds);
+
+    List<FileObject> findAllByBucket(String bucket);
+
+    Optional<FileObject> findByBucketAndObjectKey(String bucket, String objectKey);
+
+    List<FileObject> findAllByBucketAndObjectKeyIn(String bucket, Collection<String> objectKeys);
+
+    List<FileObject> findAllByBucketAndObjectKeyStartingWith(String bucket, String prefix);
+
+    @Query(value = "select blob_key from file_object where bucket = :bucket and object_key = :objectKey", nativeQuery = true)
+    Optional<String> findBlobKey(String bucket, String objectKey);
+
+    @Query(value = "select blob_key from file_object where bucket = :bucket and object_key in :objectKeys", nativeQuery = true)
+    List<String> findBlobKeys(String bucket, Collection<String> objectKeys);
+
+    /**
+     * Blocks until the end of the transaction while another transaction holds the lock of the same blob.
+     * Writes to the blob, new references to it and its deletion take the lock, so they don't interleave
+     */
+    @Query(value = "select 1 from pg_advisory_xact_lock(hashtext(:bucket || '/' || :blobKey))", nativeQuery = true)
+    Integer lockBlob(String bucket, String blobKey);
+
+    @Query(value = "select distinct blob_key from file_object where bucket = :bucket and blob_key in :blobKeys", nativeQuery = true)
+    List<String> findReferencedBlobKeys(String bucket, Collection<String> blobKeys);
+
+    @Query(value = "select count(*) as count, coalesce(sum(size), 0) as totalSize from file_object " +
+        "where owner_type = cast(:ownerType as file_owner_type) and owner_id = :ownerId", nativeQuery = true)
+    FilesSummary getSummary(String ownerType, Integer ownerId);
+
+    /**
+     * Overwriting an object in MinIO replaces its metadata, created_time is the time of the last write
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into file_object (owner_type, owner_id, bucket, object_key, blob_key, size, content_type, checksum, created_time) " +
+        "values (cast(:ownerType as file_owner_type), :ownerId, :bucket, :objectKey, :blobKey, :size, :contentType, :checksum, :createdTime) " +
+        "on conflict (bucket, object_key) do update set owner_type = excluded.owner_type, owner_id = excluded.owner_id, " +
+        "blob_key = excluded.blob_key, " +
+        "size = excluded.size, content_type = coalesce(excluded.content_type, file_object.content_type), " +
+        "checksum = excluded.checksum, " +
+        "created_time = excluded.created_time", nativeQuery = true)
+    void upsert(String ownerType, Integer ownerId, String bucket, String objectKey, String blobKey, Long size, String contentType,
+                String checksum, LocalDateTime createdTime);
+
+    /**
+     * Copies the file sourceKey to objectKey, the copy references the blob of the source.
+     * Does nothing if the source doesn't exist anymore
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into file_object (owner_type, owner_id, bucket, object_key, blob_key, size, content_type, checksum, created_time) " +
+        "select owner_type, :ownerId, bucket, :objectKey, blob_key, size, content_type, checksum, :createdTime from file_object " +
+        "where bucket = :bucket and object_key = :sourceKey " +
+        "on conflict (bucket, object_key) do update set owner_type = excluded.owner_type, owner_id = excluded.owner_id, " +
+        "blob_key = excluded.blob_key, " +
+        "size = excluded.size, content_type = excluded.content_type, " +
+        "checksum = excluded.checksum, " +
+        "created_time = excluded.created_time", nativeQuery = true)
+    int insertReference(String bucket, String sourceKey, String objectKey, Integer ownerId, LocalDateTime createdTime);
+
+    /**
+     * Moves all files that reference the blob blobKey to the blob newBlobKey
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update file_object set blob_key = :newBlobKey " +
+        "where bucket = :bucket and blob_key = :blobKey", nativeQuery = true)
+    int updateBlobKey(String bucket, String blobKey, String newBlobKey);
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from file_object where bucket = :bucket and object_key in :objectKeys", nativeQuery = true)
+    void deleteAllByBucketAndObjectKeyIn(String bucket, Collection<String> objectKeys);
+}
@@ -0,0 +1,41 @@
+package org.itmo.eventapp.main.repository;
+
+import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.entity.FileTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FileTombstoneRepository extends JpaRepository<FileTombstone, Integer> {
+
+    /**
+     * Joins the transaction deleting the owner, so the tombstone is rolled back together with the delete
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into file_tombstone (owner_type, owner_id, created_time, next_attempt_time) " +
+        "values (cast(:ownerType as file_owner_type), :ownerId, :createdTime, :createdTime) " +
+        "on conflict (owner_type, owner_id) do nothing", nativeQuery = true)
+    void insert(String ownerType, Integer ownerId, LocalDateTime createdTime);
+
+    /**
+     * Claims due tombstones until leaseUntil, tombstones of a crashed collector are picked up again after the lease expires
+     */
+    @Transactional
+    @Query(value = "update file_tombstone set attempts = attempts + 1, next_attempt_time = :leaseUntil " +
+        "where id in (select id from file_tombstone where next_attempt_time <= :now " +
+        "order by next_attempt_time limit :batchSize for update skip locked) " +
+        "returning *", nativeQuery = true)
+    List<FileTombstone> claimBatch(LocalDateTime now, LocalDateTime leaseUntil, Integer batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update file_tombstone set next_attempt_time = :nextAttemptTime, last_error = :lastError " +
+        "where id = :id", nativeQuery = true)
+    void markFailedAttempt(Integer id, LocalDateTime nextAttemptTime, String lastError);
+}
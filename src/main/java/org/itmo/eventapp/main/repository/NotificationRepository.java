@@ -1,7 +1,9 @@
 package org.itmo.eventapp.main.repository;
 
 import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.dto.response.NotificationResponse;
 import org.itmo.eventapp.main.model.entity.Notification;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
@@ -16,15 +18,92 @@ public interface NotificationRepository extends JpaRepository<Notification, Inte
 
     List<Notification> getAllByUserId(Integer id, Pageable pageable);
 
+    List<Notification> findAllByUserIdAndIdGreaterThanOrderByIdAsc(Integer userId, Integer id, Limit limit);
+
+    @Query("SELECT new org.itmo.eventapp.main.model.dto.response.NotificationResponse(" +
+        "n.id, n.title, n.description, n.seen, n.sentTime, n.link) " +
+        "FROM Notification n WHERE n.user.id = :userId " +
+        "ORDER BY n.sentTime DESC, n.id DESC")
+    List<NotificationResponse> findFeedByUserId(Integer userId, Limit limit);
+
+    // sentTime <= :sentTime is redundant, but lets the (user_id, sent_time desc, id desc) index start right at the cursor
+    @Query("SELECT new org.itmo.eventapp.main.model.dto.response.NotificationResponse(" +
+        "n.id, n.title, n.description, n.seen, n.sentTime, n.link) " +
+        "FROM Notification n WHERE n.user.id = :userId AND n.sentTime <= :sentTime " +
+        "AND (n.sentTime < :sentTime OR n.id < :id) " +
+        "ORDER BY n.sentTime DESC, n.id DESC")
+    List<NotificationResponse> findFeedByUserIdBefore(Integer userId, LocalDateTime sentTime, Integer id, Limit limit);
+
     @Modifying
     @Transactional
-    @Query(value = "update notification set seen = true where user_id = :id and seen = false;", nativeQuery = true)
-    void updateAllSeenByUserId(Integer id);
+    @Query(value = "update notification set seen = true where id = :id", nativeQuery = true)
+    void updateSeenById(Integer id);
 
-    void deleteNotificationsBySentTimeBefore(LocalDateTime time);
+    /**
+     * Locks the user row until the end of the transaction. Notifications of the user are inserted
+     * and marked as seen under this lock, so the watermark never passes a notification which is not committed yet
+     */
+    @Query(value = "select id from user_t where id = :id for update", nativeQuery = true)
+    Integer lockUserById(Integer id);
+
+    /**
+     * Marks all current notifications of the user as seen by moving the watermark, notification rows are not touched.
+     * Must run after lockUserById in the same transaction, as a separate statement it sees notifications committed while waiting for the lock
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update user_t set notification_seen_watermark = " +
+        "coalesce((select max(n.id) from notification n where n.user_id = :id), notification_seen_watermark) " +
+        "where id = :id", nativeQuery = true)
+    void updateSeenWatermarkByUserId(Integer id);
 
     Long countByUserId(Integer userId);
 
-    @Query(value = "SELECT count(n) FROM notification n WHERE n.user_id = :id AND n.seen = false", nativeQuery = true)
-    Long getCountNotSeenNotificationByUserId(Integer id);
+    @Query(value = "SELECT u.not_seen_notification_count FROM user_t u WHERE u.id = :id", nativeQuery = true)
+    Long getNotSeenCountByUserId(Integer id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update user_t set not_seen_notification_count = not_seen_notification_count + 1 where id = :id", nativeQuery = true)
+    void incrementNotSeenCountByUserId(Integer id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update user_t set not_seen_notification_count = greatest(not_seen_notification_count - 1, 0) where id = :id", nativeQuery = true)
+    void decrementNotSeenCountByUserId(Integer id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update user_t set not_seen_notification_count = 0 where id = :id", nativeQuery = true)
+    void resetNotSeenCountByUserId(Integer id);
+
+    /**
+     * Creates monthly notification partitions from the current month up to monthsAhead months ahead
+     */
+    @Transactional
+    @Query(value = "select create_notification_partitions(current_date, :monthsAhead)", nativeQuery = true)
+    Integer createPartitions(Integer monthsAhead);
+
+    /**
+     * Drops whole monthly partitions with notifications sent before given time, not seen counters are decreased
+     */
+    @Transactional
+    @Query(value = "select drop_notification_partitions_before(:time)", nativeQuery = true)
+    Integer dropPartitionsBySentTimeBefore(LocalDateTime time);
+
+    /**
+     * Deletes at most chunkSize notifications sent before given time and decreases not seen counters of their owners
+     *
+     * @return number of deleted notifications
+     */
+    @Transactional
+    @Query(value = "with deleted as (" +
+        "delete from notification where sent_time < :time " +
+        "and id in (select id from notification where sent_time < :time limit :chunkSize) returning id, user_id, seen), " +
+        "counters as (update user_t u set not_seen_notification_count = greatest(u.not_seen_notification_count - d.cnt, 0) " +
+        "from (select del.user_id, count(*) filter (where del.seen = false and del.id > w.notification_seen_watermark) as cnt " +
+        "from deleted del join user_t w on w.id = del.user_id group by del.user_id) d " +
+        "where u.id = d.user_id) " +
+        "select cast(count(*) as int) from deleted", nativeQuery = true)
+    Integer deleteChunkBySentTimeBefore(LocalDateTime time, Integer chunkSize);
 }
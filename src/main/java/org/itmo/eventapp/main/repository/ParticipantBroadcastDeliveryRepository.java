@@ -0,0 +1,58 @@
+package org.itmo.eventapp.main.repository;
+
+import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcastDelivery;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ParticipantBroadcastDeliveryRepository extends JpaRepository<ParticipantBroadcastDelivery, Integer> {
+
+    /**
+     * Creates deliveries for all participants of the event inside the database without loading them
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into participant_broadcast_delivery (broadcast_id, participant_id, recipient, participant_name, next_attempt_time) " +
+        "select :broadcastId, p.id, p.email, p.name, :time from participant p where p.event_id = :eventId", nativeQuery = true)
+    int createForEventParticipants(Integer broadcastId, Integer eventId, LocalDateTime time);
+
+    /**
+     * Claims due pending deliveries the same way as EmailOutboxRepository.claimBatch
+     */
+    @Transactional
+    @Query(value = "update participant_broadcast_delivery set attempts = attempts + 1, next_attempt_time = :leaseUntil " +
+        "where id in (select id from participant_broadcast_delivery where status = 'PENDING' and next_attempt_time <= :now " +
+        "order by next_attempt_time, id limit :batchSize for update skip locked) " +
+        "returning *", nativeQuery = true)
+    List<ParticipantBroadcastDelivery> claimBatch(LocalDateTime now, LocalDateTime leaseUntil, Integer batchSize);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update participant_broadcast_delivery set status = 'SENT', sent_time = :sentTime, last_error = null where id in :ids", nativeQuery = true)
+    void markSent(Collection<Integer> ids, LocalDateTime sentTime);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update participant_broadcast_delivery set status = cast(:status as email_outbox_status), " +
+        "next_attempt_time = :nextAttemptTime, last_error = :lastError where id = :id", nativeQuery = true)
+    void markFailedAttempt(Integer id, String status, LocalDateTime nextAttemptTime, String lastError);
+
+    /**
+     * Returns claimed deliveries to the queue without counting the attempt, see EmailOutboxRepository.releaseClaim
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "update participant_broadcast_delivery set attempts = greatest(attempts - 1, 0), next_attempt_time = :nextAttemptTime " +
+        "where id in :ids", nativeQuery = true)
+    void releaseClaim(Collection<Integer> ids, LocalDateTime nextAttemptTime);
+
+    long countByBroadcastIdAndStatus(Integer broadcastId, EmailOutboxStatus status);
+}
@@ -0,0 +1,24 @@
+package org.itmo.eventapp.main.repository;
+
+import jakarta.transaction.Transactional;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcast;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface ParticipantBroadcastRepository extends JpaRepository<ParticipantBroadcast, Integer> {
+
+    Optional<ParticipantBroadcast> findByIdAndEventId(Integer id, Integer eventId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "update participant_broadcast b set status = 'COMPLETED', completed_time = :time " +
+        "where b.status = 'IN_PROGRESS' and not exists (select 1 from participant_broadcast_delivery d " +
+        "where d.broadcast_id = b.id and d.status = 'PENDING')", nativeQuery = true)
+    int completeFinished(LocalDateTime time);
+}
@@ -1,18 +1,45 @@
 package org.itmo.eventapp.main.repository;
 
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
 import org.itmo.eventapp.main.model.entity.Participant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ParticipantsRepository extends JpaRepository<Participant, Integer> {
     List<Participant> findAllByEventId(Integer eventId);
 
+    /**
+     * Streams the participants of the event through a cursor, must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Participant p WHERE p.event.id = :eventId ORDER BY p.id")
+    Stream<Participant> streamAllByEventId(Integer eventId);
+
     Optional<Participant> findByIdAndEventId(Integer id, Integer eventId);
 
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Participant p WHERE p.event.id = :eventId")
     void deleteAllByEventId(Integer eventId);
 
+    /**
+     * Inserts the whole batch with a single statement, arrays hold the columns of the rows
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "insert into participant (name, email, additional_info, visited, event_id) " +
+        "select name, email, additional_info, false, :eventId " +
+        "from unnest(cast(:names as varchar[]), cast(:emails as varchar[]), cast(:additionalInfos as text[])) " +
+        "as rows (name, email, additional_info)", nativeQuery = true)
+    void insertAll(Integer eventId, String[] names, String[] emails, String[] additionalInfos);
 }
@@ -3,9 +3,11 @@ package org.itmo.eventapp.main.repository;
 import org.itmo.eventapp.main.model.entity.Task;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +15,7 @@ public interface TaskRepository extends JpaRepository<Task, Integer>,
     PagingAndSortingRepository<Task, Integer>,
     JpaSpecificationExecutor<Task> {
     List<Task> findAllByEventId(Integer eventId);
-}
\ No newline at end of file
+
+    @Query("SELECT t.id FROM Task t WHERE t.id IN :ids")
+    List<Integer> findExistingIds(Collection<Integer> ids);
+}
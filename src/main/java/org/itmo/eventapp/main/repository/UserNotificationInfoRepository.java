@@ -2,8 +2,14 @@ package org.itmo.eventapp.main.repository;
 
 import org.itmo.eventapp.main.model.entity.UserNotificationInfo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface UserNotificationInfoRepository extends JpaRepository<UserNotificationInfo, Integer> {
+
+    @Query("SELECT uli.user.userNotificationInfo.enableEmailNotifications FROM UserLoginInfo uli WHERE uli.login = :login")
+    Optional<Boolean> findEnableEmailNotificationsByLogin(String login);
 }
@@ -67,6 +67,7 @@ public class SecurityConfig {
                 .requestMatchers("/validateRecoveryToken").permitAll()
                 .requestMatchers("/event-app/**").permitAll()
                 .requestMatchers("/newPassword").permitAll()
+                .requestMatchers("/api/storage/**").permitAll()
                 .anyRequest().authenticated())
             //.anyRequest().permitAll())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
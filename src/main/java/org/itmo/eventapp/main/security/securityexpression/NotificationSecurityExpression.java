@@ -0,0 +1,18 @@
+package org.itmo.eventapp.main.security.securityexpression;
+
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.model.entity.enums.PrivilegeName;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.annotation.Validated;
+
+@RequiredArgsConstructor
+@Validated
+@Service
+public class NotificationSecurityExpression {
+    private final MiscSecurityExpression miscSecurityExpression;
+
+    // отдельной привилегии нет, состояние очереди писем видят те, кто управляет системными ролями
+    public boolean canViewEmailOutboxStats() {
+        return miscSecurityExpression.checkSystemPrivilege(PrivilegeName.ASSIGN_SYSTEM_ROLE);
+    }
+}
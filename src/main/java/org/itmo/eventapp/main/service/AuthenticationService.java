@@ -1,7 +1,6 @@
 package org.itmo.eventapp.main.service;
 
 
-import jakarta.mail.MessagingException;
 import lombok.RequiredArgsConstructor;
 import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
 import org.itmo.eventapp.main.model.dto.request.NewPasswordRequest;
@@ -27,7 +26,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -145,10 +143,7 @@ public class AuthenticationService {
 
         loginAttemptsService.save(loginAttempts);
 
-        try {
-            mailSenderService.sendApproveRegistrationRequestMessage(request.getEmail(), request.getName());
-        } catch (MessagingException | IOException e) {
-        }
+        mailSenderService.sendApproveRegistrationRequestMessage(request.getEmail(), request.getName());
     }
 
     @Transactional
@@ -162,10 +157,7 @@ public class AuthenticationService {
         request.setStatus(RegistrationRequestStatus.DECLINED);
         registrationRequestService.save(request);
 
-        try {
-            mailSenderService.sendDeclineRegistrationRequestMessage(request.getEmail(), request.getName());
-        } catch (MessagingException | IOException e) {
-        }
+        mailSenderService.sendDeclineRegistrationRequestMessage(request.getEmail(), request.getName());
     }
 
     public List<RegistrationRequestForAdmin> listRegisterRequestsCallback() {
@@ -194,10 +186,7 @@ public class AuthenticationService {
 
         String url = returnUrl + "?token=" + token;
 
-        try {
-            mailSenderService.sendRecoveryPasswordMessage(email, info.getUser().getName(), url);
-        }
-        catch (MessagingException | IOException e) {}
+        mailSenderService.sendRecoveryPasswordMessage(email, info.getUser().getName(), url);
     }
 
     public void sendVerificationEmail(String returnUrl) {
@@ -216,10 +205,7 @@ public class AuthenticationService {
 
         String url = returnUrl + "?token=" + token;
 
-        try {
-            mailSenderService.sendEmailVerificationMessage(email, user.getName(), url);
-        }
-        catch (MessagingException | IOException e) {}
+        mailSenderService.sendEmailVerificationMessage(email, user.getName(), url);
     }
 
 
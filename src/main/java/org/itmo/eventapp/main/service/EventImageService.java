@@ -0,0 +1,204 @@
+package org.itmo.eventapp.main.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.itmo.eventapp.main.minio.MinioService;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Уменьшенные копии изображений мероприятий. Копии хранятся под ключами <eventId>_<вариант>_<хэш оригинала>.jpg,
+ * поэтому их содержимое по ключу не меняется и отдается с бессрочным Cache-Control
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class EventImageService {
+
+    private static final String BUCKET_NAME = "event-images";
+    private static final Map<String, Integer> VARIANT_WIDTHS = new LinkedHashMap<>();
+    private static final Map<String, String> VARIANT_HEADERS = Map.of("Cache-Control", "public, max-age=31536000, immutable");
+
+    static {
+        VARIANT_WIDTHS.put("thumbnail", 320);
+        VARIANT_WIDTHS.put("medium", 1280);
+    }
+
+    private final MinioService minioService;
+    private final FileObjectService fileObjectService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${minio.image-variants.jpeg-quality:0.85}")
+    private Float jpegQuality;
+
+    @Value("${minio.image-variants.max-pixels:25000000}")
+    private Long maxPixels;
+
+    private ExecutorService executor;
+
+    /**
+     * Публикуется после загрузки изображения мероприятия, копии создаются после коммита транзакции
+     */
+    public record EventImageUploaded(Integer eventId) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // изображения декодируются целиком в память, поэтому обрабатываются по одному
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-image-variants");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void createVariantsAfterCommit(Integer eventId) {
+        eventPublisher.publishEvent(new EventImageUploaded(eventId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventImageUploaded(EventImageUploaded event) {
+        executor.execute(() -> createVariants(event.eventId()));
+    }
+
+    /**
+     * @return ссылки на уменьшенные копии изображения по названию варианта, пустой словарь, если копий нет
+     */
+    public Map<String, String> getVariantUrls(Integer eventId) {
+        return getVariantUrls(List.of(eventId)).getOrDefault(eventId, Map.of());
+    }
+
+    public Map<Integer, Map<String, String>> getVariantUrls(Collection<Integer> eventIds) {
+        Map<Integer, Map<String, String>> urls = new HashMap<>();
+        for (FileObject file : fileObjectService.getFiles(FileOwnerType.EVENT_IMAGE, eventIds)) {
+            String[] keyParts = file.getObjectKey().split("_", 3);
+            if (keyParts.length == 3 && VARIANT_WIDTHS.containsKey(keyParts[1])) {
+                urls.computeIfAbsent(file.getOwnerId(), id -> new HashMap<>())
+                    .put(keyParts[1], minioService.getUnsignedUrl(BUCKET_NAME, file.getBlobKey()));
+            }
+        }
+        return urls;
+    }
+
+    private void createVariants(Integer eventId) {
+        try {
+            byte[] original = minioService.download(BUCKET_NAME, eventId.toString());
+            BufferedImage image = decode(eventId, original);
+            if (image == null) {
+                return;
+            }
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(original), 0, 8);
+
+            Set<String> variantKeys = new HashSet<>();
+            for (Map.Entry<String, Integer> variant : VARIANT_WIDTHS.entrySet()) {
+                String key = eventId + "_" + variant.getKey() + "_" + hash + ".jpg";
+                minioService.uploadBytes(toJpeg(resize(image, variant.getValue())), "image/jpeg", VARIANT_HEADERS, BUCKET_NAME, key);
+                variantKeys.add(key);
+            }
+
+            // копии прежнего изображения больше не нужны
+            List<String> staleKeys = fileObjectService.getFiles(FileOwnerType.EVENT_IMAGE, eventId).stream()
+                .map(FileObject::getObjectKey)
+                .filter(key -> key.startsWith(eventId + "_") && !variantKeys.contains(key))
+                .toList();
+            if (!staleKeys.isEmpty()) {
+                minioService.deleteAll(BUCKET_NAME, staleKeys);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to create image variants of event {}: {}", eventId, e.getMessage());
+        }
+    }
+
+    // размеры берутся из заголовка до декодирования: небольшой файл может объявить изображение, которое не поместится в памяти
+    private BufferedImage decode(Integer eventId, byte[] original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.warn("Image of event {} has unsupported format, variants are not created", eventId);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long width = reader.getWidth(0);
+                long height = reader.getHeight(0);
+                if (width * height > maxPixels) {
+                    log.warn("Image of event {} is {}x{}, larger than {} pixels, variants are not created", eventId, width, height, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // изображение только уменьшается, прозрачный фон заменяется белым, так как JPEG не поддерживает прозрачность
+    private BufferedImage resize(BufferedImage image, int maxWidth) {
+        int width = Math.min(maxWidth, image.getWidth());
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -14,10 +14,12 @@ import org.itmo.eventapp.main.minio.MinioService;
 import org.itmo.eventapp.main.model.dto.request.CreateEventRequest;
 import org.itmo.eventapp.main.model.dto.request.EditEventRequest;
 import org.itmo.eventapp.main.model.dto.request.EventRequest;
+import org.itmo.eventapp.main.model.dto.response.FileUploadIntentResponse;
 import org.itmo.eventapp.main.model.dto.response.PaginatedResponse;
 import org.itmo.eventapp.main.model.entity.*;
 import org.itmo.eventapp.main.model.entity.enums.EventFormat;
 import org.itmo.eventapp.main.model.entity.enums.EventStatus;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
 import org.itmo.eventapp.main.model.mapper.EventMapper;
 import org.itmo.eventapp.main.repository.EventRepository;
 import org.itmo.eventapp.main.repository.PlaceRowRepository;
@@ -41,6 +43,7 @@ public class EventService {
     private final PlaceRowRepository placeRowRepository;
 
     private final MinioService minioService;
+    private final EventImageService eventImageService;
     private static final String BUCKET_NAME = "event-images";
 
     private final PlaceService placeService;
@@ -96,6 +99,7 @@ public class EventService {
         MultipartFile image = eventRequest.image();
         if (!Objects.isNull(image)) {
             minioService.uploadWithModifiedFileName(image, BUCKET_NAME, e.getId().toString());
+            eventImageService.createVariantsAfterCommit(e.getId());
         }
         return e;
     }
@@ -148,8 +152,10 @@ public class EventService {
         eventRepository.save(updatedEvent);
         MultipartFile image = eventRequest.image();
         if (!Objects.isNull(image)) {
-            minioService.deleteImageByPrefix(BUCKET_NAME, updatedEvent.getId().toString());
+            // только файлы этого мероприятия, префикс "1" задел бы и мероприятие 10
+            minioService.deleteByOwners(BUCKET_NAME, List.of(updatedEvent.getId()));
             minioService.uploadWithModifiedFileName(image, BUCKET_NAME, updatedEvent.getId().toString());
+            eventImageService.createVariantsAfterCommit(updatedEvent.getId());
         }
         return updatedEvent;
     }
@@ -205,14 +211,35 @@ public class EventService {
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.EVENT_NOT_FOUND_MESSAGE));
     }
 
+    /**
+     * Выдает ссылку для загрузки изображения мероприятия напрямую в хранилище, загруженный объект заменяет прежнее изображение
+     */
+    public FileUploadIntentResponse createImageUploadIntent(Integer id) {
+        Event event = getEventById(id);
+        String objectName = event.getId().toString();
+        return new FileUploadIntentResponse(objectName, minioService.getPresignedUploadUrl(BUCKET_NAME, objectName),
+            LocalDateTime.now().plusSeconds(minioService.getPresignedUploadExpiryInSeconds()));
+    }
+
+    public void confirmImageUpload(Integer id) {
+        Event event = getEventById(id);
+        String objectName = event.getId().toString();
+        if (!minioService.confirmUpload(BUCKET_NAME, objectName)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(ExceptionConst.FILE_NOT_UPLOADED_MESSAGE, objectName));
+        }
+        eventImageService.createVariantsAfterCommit(event.getId());
+    }
+
+    @Transactional
     public void deleteActivityById(Integer id) {
 
         Event activity = this.getEventById(id);
         if (activity.getParent() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionConst.EVENT_DELETION_FORBIDDEN_MESSAGE);
         }
-        minioService.deleteImageByPrefix(BUCKET_NAME, id.toString());
         eventRepository.deleteById(id);
+        minioService.deleteFilesLater(FileOwnerType.EVENT_IMAGE, List.of(id));
+        minioService.deleteFilesLater(FileOwnerType.EVENT_PARTICIPANTS, List.of(id));
 
     }
 
@@ -0,0 +1,205 @@
+package org.itmo.eventapp.main.service;
+
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.model.entity.FileObject;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.itmo.eventapp.main.repository.FileObjectRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Индекс метаданных объектов хранилища. Владелец объекта определяется по бакету,
+ * а его id - по числу в начале имени объекта: <taskId>_..., <eventId>, <eventId>.xlsx.
+ * Содержимое файла хранится в объекте blob_key, копии файла ссылаются на тот же объект.
+ * Новое содержимое файла записывается в новый объект, поэтому копии сохраняют прежнее
+ */
+@RequiredArgsConstructor
+@Service
+public class FileObjectService {
+
+    private static final Map<String, FileOwnerType> BUCKET_OWNER_TYPES = Map.of(
+        "task-objects", FileOwnerType.TASK,
+        "event-images", FileOwnerType.EVENT_IMAGE,
+        "event-participants", FileOwnerType.EVENT_PARTICIPANTS
+    );
+    private static final Pattern OWNER_ID_PATTERN = Pattern.compile("^(\\d{1,9})(\\D|$)");
+
+    private final FileObjectRepository fileObjectRepository;
+
+    public boolean isIndexed(String bucket) {
+        return BUCKET_OWNER_TYPES.containsKey(bucket);
+    }
+
+    public FileOwnerType getOwnerType(String bucket) {
+        return BUCKET_OWNER_TYPES.get(bucket);
+    }
+
+    public String getBucket(FileOwnerType ownerType) {
+        return BUCKET_OWNER_TYPES.entrySet().stream()
+            .filter(entry -> entry.getValue() == ownerType)
+            .map(Map.Entry::getKey)
+            .findFirst()
+            .orElseThrow();
+    }
+
+    /**
+     * Сохраняет метаданные записанного объекта, объекты без владельца не индексируются
+     */
+    public void record(String bucket, String objectKey, long size, String contentType, String checksum) {
+        record(bucket, objectKey, size, contentType, checksum, LocalDateTime.now());
+    }
+
+    public void record(String bucket, String objectKey, long size, String contentType, String checksum, LocalDateTime createdTime) {
+        record(bucket, objectKey, objectKey, size, contentType, checksum, createdTime);
+    }
+
+    /**
+     * Сохраняет метаданные файла objectKey, содержимое которого записано в объект blobKey
+     */
+    public void record(String bucket, String objectKey, String blobKey, long size, String contentType, String checksum,
+                       LocalDateTime createdTime) {
+        FileOwnerType ownerType = BUCKET_OWNER_TYPES.get(bucket);
+        Integer ownerId = getOwnerId(objectKey);
+        if (ownerType == null || ownerId == null) {
+            return;
+        }
+        fileObjectRepository.upsert(ownerType.name(), ownerId, bucket, objectKey, blobKey, size, contentType,
+            normalizeChecksum(checksum), createdTime);
+    }
+
+    /**
+     * Индексируется ли файл objectKey: бакет известен и имя начинается с id владельца
+     */
+    public boolean isIndexed(String bucket, String objectKey) {
+        return isIndexed(bucket) && getOwnerId(objectKey) != null;
+    }
+
+    /**
+     * Сохраняет копию файла sourceKey, которая ссылается на его содержимое, не копируя объект в хранилище
+     *
+     * @return false, если файла sourceKey уже нет
+     */
+    public boolean recordReference(String bucket, String sourceKey, String objectKey) {
+        Integer ownerId = getOwnerId(objectKey);
+        if (!isIndexed(bucket) || ownerId == null) {
+            return false;
+        }
+        return fileObjectRepository.insertReference(bucket, sourceKey, objectKey, ownerId, LocalDateTime.now()) > 0;
+    }
+
+    public void recordCopy(String sourceBucket, String sourceKey, String bucket, String objectKey, long size, String checksum) {
+        String contentType = fileObjectRepository.findByBucketAndObjectKey(sourceBucket, sourceKey)
+            .map(FileObject::getContentType)
+            .orElse(null);
+        record(bucket, objectKey, size, contentType, checksum);
+    }
+
+    public void deleteAll(String bucket, Collection<String> objectKeys) {
+        if (!isIndexed(bucket) || objectKeys.isEmpty()) {
+            return;
+        }
+        fileObjectRepository.deleteAllByBucketAndObjectKeyIn(bucket, objectKeys);
+    }
+
+    public Optional<FileObject> getFile(String bucket, String objectKey) {
+        return fileObjectRepository.findByBucketAndObjectKey(bucket, objectKey);
+    }
+
+    public List<FileObject> getFiles(String bucket, Collection<String> objectKeys) {
+        if (!isIndexed(bucket) || objectKeys.isEmpty()) {
+            return List.of();
+        }
+        return fileObjectRepository.findAllByBucketAndObjectKeyIn(bucket, objectKeys);
+    }
+
+    public List<FileObject> getFilesByPrefix(String bucket, String prefix) {
+        if (!isIndexed(bucket)) {
+            return List.of();
+        }
+        return fileObjectRepository.findAllByBucketAndObjectKeyStartingWith(bucket, prefix);
+    }
+
+    /**
+     * Объект с содержимым файла. Читается запросом, а не из сущности, которая могла устареть в текущей транзакции
+     */
+    public Optional<String> getBlobKey(String bucket, String objectKey) {
+        if (!isIndexed(bucket)) {
+            return Optional.empty();
+        }
+        return fileObjectRepository.findBlobKey(bucket, objectKey);
+    }
+
+    public List<String> getBlobKeys(String bucket, Collection<String> objectKeys) {
+        if (!isIndexed(bucket) || objectKeys.isEmpty()) {
+            return List.of();
+        }
+        return fileObjectRepository.findBlobKeys(bucket, objectKeys);
+    }
+
+    /**
+     * Блокирует объекты blobKeys до конца текущей транзакции. Объекты блокируются по порядку имен,
+     * чтобы две транзакции не ждали друг друга
+     */
+    public void lockBlobs(String bucket, Collection<String> blobKeys) {
+        if (!isIndexed(bucket)) {
+            return;
+        }
+        blobKeys.stream().distinct().sorted().forEach(blobKey -> fileObjectRepository.lockBlob(bucket, blobKey));
+    }
+
+    /**
+     * @return объекты из blobKeys, на которые ссылается хотя бы один файл
+     */
+    public Set<String> getReferencedBlobKeys(String bucket, Collection<String> blobKeys) {
+        if (!isIndexed(bucket) || blobKeys.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(fileObjectRepository.findReferencedBlobKeys(bucket, blobKeys));
+    }
+
+    /**
+     * Переводит все файлы, которые ссылаются на объект blobKey, на его копию newBlobKey
+     *
+     * @return число переведенных файлов
+     */
+    public int moveReferences(String bucket, String blobKey, String newBlobKey) {
+        return fileObjectRepository.updateBlobKey(bucket, blobKey, newBlobKey);
+    }
+
+    public List<FileObject> getFiles(FileOwnerType ownerType, Integer ownerId) {
+        return fileObjectRepository.findAllByOwnerTypeAndOwnerIdOrderByCreatedTimeAsc(ownerType, ownerId);
+    }
+
+    public List<FileObject> getFiles(FileOwnerType ownerType, Collection<Integer> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return List.of();
+        }
+        return fileObjectRepository.findAllByOwnerTypeAndOwnerIdIn(ownerType, ownerIds);
+    }
+
+    public FileObjectRepository.FilesSummary getSummary(FileOwnerType ownerType, Integer ownerId) {
+        return fileObjectRepository.getSummary(ownerType.name(), ownerId);
+    }
+
+    /**
+     * @return id владельца объекта, null если имя объекта не начинается с id
+     */
+    public Integer getOwnerId(String objectKey) {
+        Matcher matcher = OWNER_ID_PATTERN.matcher(objectKey);
+        return matcher.find() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+
+    // MinIO возвращает ETag в кавычках
+    public String normalizeChecksum(String checksum) {
+        return checksum == null ? null : checksum.replace("\"", "");
+    }
+}
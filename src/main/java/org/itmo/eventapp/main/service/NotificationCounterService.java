@@ -0,0 +1,40 @@
+package org.itmo.eventapp.main.service;
+
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.repository.NotificationRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps per-user not seen notification counters in user_t.not_seen_notification_count,
+ * so reading the badge is a primary key lookup and never has to count notification rows.
+ * Counters are changed in the caller's transaction and are not cached in memory:
+ * a rolled back change or another instance of the application can not leave a stale value behind.
+ */
+@RequiredArgsConstructor
+@Service
+public class NotificationCounterService {
+    private final NotificationRepository notificationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Long getNotSeenCount(@NotNull Integer userId) {
+        Long count = notificationRepository.getNotSeenCountByUserId(userId);
+        return count == null ? 0L : count;
+    }
+
+    public void increment(@NotNull Integer userId) {
+        notificationRepository.incrementNotSeenCountByUserId(userId);
+        eventPublisher.publishEvent(new NotificationStreamService.NotSeenCountChanged(userId));
+    }
+
+    public void decrement(@NotNull Integer userId) {
+        notificationRepository.decrementNotSeenCountByUserId(userId);
+        eventPublisher.publishEvent(new NotificationStreamService.NotSeenCountChanged(userId));
+    }
+
+    public void reset(@NotNull Integer userId) {
+        notificationRepository.resetNotSeenCountByUserId(userId);
+        eventPublisher.publishEvent(new NotificationStreamService.NotSeenCountChanged(userId));
+    }
+}
@@ -3,17 +3,24 @@ package org.itmo.eventapp.main.service;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
+import org.itmo.eventapp.main.model.dto.response.NotificationFeedResponse;
+import org.itmo.eventapp.main.model.dto.response.NotificationResponse;
 import org.itmo.eventapp.main.model.entity.Notification;
 import org.itmo.eventapp.main.model.entity.User;
 import org.itmo.eventapp.main.repository.NotificationRepository;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -21,7 +28,13 @@ import java.util.List;
 public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserService userService;
+    private final NotificationCounterService notificationCounterService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Value(value = "${notifications.retention.delete-chunk-size:1000}")
+    private Integer deleteChunkSize;
+
+    @Transactional
     public void createNotification(String title, String description, Integer userId, String link) {
         User user;
         try {
@@ -30,7 +43,9 @@ public class NotificationService {
             throw new EntityNotFoundException("User not found!(" + userId + ")");
         }
 
-        notificationRepository.save(Notification.builder()
+        // id of the notification is taken under the lock of the owner, see updateSeenToAllByUserId
+        notificationRepository.lockUserById(userId);
+        Notification notification = notificationRepository.save(Notification.builder()
             .user(user)
             .title(title)
             .description(description)
@@ -38,8 +53,11 @@ public class NotificationService {
             .sentTime(LocalDateTime.now())
             .link(link)
             .build());
+        notificationCounterService.increment(userId);
+        eventPublisher.publishEvent(new NotificationStreamService.NotificationCreated(notification));
     }
 
+    @Transactional
     public Notification updateToSeen(Integer notificationId, Integer userId) {
 
         Notification notification = notificationRepository
@@ -50,16 +68,21 @@ public class NotificationService {
             // abort operation if user id mismatch
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, ExceptionConst.NOTIFICATION_ERROR_MESSAGE);
         }
+        if (!notification.isSeen()) {
+            notificationRepository.updateSeenById(notificationId);
+            notificationCounterService.decrement(userId);
+        }
         notification.setSeen(true);
         // зачем менять дату уведомления при прочтении?
         // notification.setSentTime(LocalDateTime.now());
-        notificationRepository.save(notification);
         return notification;
     }
 
     @Transactional
     public List<Notification> updateSeenToAllByUserId(@NotNull Integer userId, Integer page, Integer size) {
-        notificationRepository.updateAllSeenByUserId(userId);
+        notificationRepository.lockUserById(userId);
+        notificationRepository.updateSeenWatermarkByUserId(userId);
+        notificationCounterService.reset(userId);
         Pageable pageRequest = PageRequest.of(page, size, Sort.by("sentTime").descending());
         return notificationRepository.getAllByUserId(userId, pageRequest);
     }
@@ -79,12 +102,64 @@ public class NotificationService {
         return new PageImpl<>(notifications, pageRequest, total);
     }
 
-    @Transactional
+    /**
+     * Keyset pagination over (sentTime desc, id desc), so a page costs the same regardless of its depth
+     *
+     * @param cursor    nextCursor of the previous page, null for the first page
+     * @param withTotal whether to count all notifications of the user
+     */
+    public NotificationFeedResponse getFeedByUserId(@NotNull Integer userId, String cursor, Integer size, boolean withTotal) {
+        Limit limit = Limit.of(size + 1);
+        List<NotificationResponse> items;
+        if (cursor == null) {
+            items = notificationRepository.findFeedByUserId(userId, limit);
+        } else {
+            FeedCursor last = decodeCursor(cursor);
+            items = notificationRepository.findFeedByUserIdBefore(userId, last.sentTime(), last.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = encodeCursor(items.get(size - 1));
+        }
+        Long total = withTotal ? notificationRepository.countByUserId(userId) : null;
+        return new NotificationFeedResponse(items, nextCursor, total);
+    }
+
+    private record FeedCursor(LocalDateTime sentTime, Integer id) {
+    }
+
+    private String encodeCursor(NotificationResponse notification) {
+        String cursor = notification.sent_time() + "_" + notification.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FeedCursor decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+            return new FeedCursor(LocalDateTime.parse(parts[0]), Integer.valueOf(parts[1]));
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionConst.NOTIFICATION_CURSOR_ERROR_MESSAGE);
+        }
+    }
+
+    /**
+     * Whole months are dropped as partitions, the rest is deleted in chunks, each chunk in its own transaction
+     */
     public void deleteNotificationsBeforeSentTime(LocalDateTime beforeTime) {
-        notificationRepository.deleteNotificationsBySentTimeBefore(beforeTime);
+        notificationRepository.dropPartitionsBySentTimeBefore(beforeTime);
+        int deleted;
+        do {
+            deleted = notificationRepository.deleteChunkBySentTimeBefore(beforeTime, deleteChunkSize);
+        } while (deleted == deleteChunkSize);
+    }
+
+    public void createNotificationPartitions(Integer monthsAhead) {
+        notificationRepository.createPartitions(monthsAhead);
     }
 
     public Long getCountNotSeenNotificationByUserId(@NotNull Integer userId) {
-        return notificationRepository.getCountNotSeenNotificationByUserId(userId);
+        return notificationCounterService.getNotSeenCount(userId);
     }
 }
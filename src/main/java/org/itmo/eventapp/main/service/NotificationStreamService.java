@@ -0,0 +1,148 @@
+package org.itmo.eventapp.main.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.itmo.eventapp.main.model.entity.Notification;
+import org.itmo.eventapp.main.model.mapper.NotificationMapper;
+import org.itmo.eventapp.main.repository.NotificationRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes new notifications and not seen count changes to connected clients over SSE.
+ * Emitters are held per node, so the number of open connections is capped by notifications.sse.max-connections.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class NotificationStreamService {
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String NOT_SEEN_COUNT_EVENT = "notSeenCount";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationCounterService notificationCounterService;
+
+    private final Map<Integer, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @Value("${notifications.sse.max-connections:1000}")
+    private Integer maxConnections;
+
+    @Value("${notifications.sse.timeout-in-millis:1800000}")
+    private Long timeoutInMillis;
+
+    @Value("${notifications.sse.resume-limit:100}")
+    private Integer resumeLimit;
+
+    /**
+     * Published by NotificationService after a notification is saved
+     */
+    public record NotificationCreated(Notification notification) {
+    }
+
+    /**
+     * Published by NotificationCounterService after the not seen counter of the user is changed
+     */
+    public record NotSeenCountChanged(Integer userId) {
+    }
+
+    public SseEmitter subscribe(@NotNull Integer userId, Integer lastEventId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutInMillis);
+        emitters.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        emitter.onCompletion(() -> remove(userId, emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> remove(userId, emitter));
+
+        if (lastEventId != null) {
+            List<Notification> missed = notificationRepository
+                .findAllByUserIdAndIdGreaterThanOrderByIdAsc(userId, lastEventId, Limit.of(resumeLimit));
+            for (Notification notification : missed) {
+                send(userId, emitter, notificationEvent(notification));
+            }
+        }
+        send(userId, emitter, notSeenCountEvent(notificationCounterService.getNotSeenCount(userId)));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationCreated(NotificationCreated event) {
+        Notification notification = event.notification();
+        broadcast(notification.getUser().getId(), () -> notificationEvent(notification));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotSeenCountChanged(NotSeenCountChanged event) {
+        if (emitters.containsKey(event.userId())) {
+            Long count = notificationCounterService.getNotSeenCount(event.userId());
+            broadcast(event.userId(), () -> notSeenCountEvent(count));
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and drops the ones whose clients are gone
+     */
+    @Scheduled(fixedRateString = "${notifications.sse.heartbeat-period-in-millis:15000}")
+    public void sendHeartbeat() {
+        emitters.forEach((userId, userEmitters) ->
+            userEmitters.forEach(emitter -> send(userId, emitter, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void broadcast(Integer userId, Supplier<SseEmitter.SseEventBuilder> event) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters == null) {
+            return;
+        }
+        // event builder is single use, so every emitter gets its own one
+        userEmitters.forEach(emitter -> send(userId, emitter, event.get()));
+    }
+
+    private void send(Integer userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Notification stream of user {} is closed: {}", userId, e.getMessage());
+            remove(userId, emitter);
+        }
+    }
+
+    private void remove(Integer userId, SseEmitter emitter) {
+        Set<SseEmitter> userEmitters = emitters.get(userId);
+        if (userEmitters != null && userEmitters.remove(emitter)) {
+            connections.decrementAndGet();
+            emitters.computeIfPresent(userId, (id, set) -> set.isEmpty() ? null : set);
+        }
+    }
+
+    private SseEmitter.SseEventBuilder notificationEvent(Notification notification) {
+        return SseEmitter.event()
+            .id(notification.getId().toString())
+            .name(NOTIFICATION_EVENT)
+            .data(NotificationMapper.notificationToNotificationResponse(notification));
+    }
+
+    private SseEmitter.SseEventBuilder notSeenCountEvent(Long count) {
+        return SseEmitter.event()
+            .name(NOT_SEEN_COUNT_EVENT)
+            .data(count);
+    }
+}
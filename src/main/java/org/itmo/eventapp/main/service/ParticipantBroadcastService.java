@@ -0,0 +1,64 @@
+package org.itmo.eventapp.main.service;
+
+import lombok.RequiredArgsConstructor;
+import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
+import org.itmo.eventapp.main.model.dto.request.ParticipantBroadcastRequest;
+import org.itmo.eventapp.main.model.dto.response.ParticipantBroadcastResponse;
+import org.itmo.eventapp.main.model.entity.Event;
+import org.itmo.eventapp.main.model.entity.ParticipantBroadcast;
+import org.itmo.eventapp.main.model.entity.enums.EmailOutboxStatus;
+import org.itmo.eventapp.main.model.entity.enums.ParticipantBroadcastStatus;
+import org.itmo.eventapp.main.model.mapper.ParticipantMapper;
+import org.itmo.eventapp.main.repository.ParticipantBroadcastDeliveryRepository;
+import org.itmo.eventapp.main.repository.ParticipantBroadcastRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Рассылка письма всем участникам мероприятия. Письма отправляет ParticipantBroadcastSender,
+ * состояние доставки хранится для каждого участника.
+ */
+@RequiredArgsConstructor
+@Service
+public class ParticipantBroadcastService {
+
+    private final ParticipantBroadcastRepository participantBroadcastRepository;
+    private final ParticipantBroadcastDeliveryRepository participantBroadcastDeliveryRepository;
+    private final EventService eventService;
+
+    @Transactional
+    public ParticipantBroadcastResponse createBroadcast(Integer eventId, ParticipantBroadcastRequest request) {
+        Event event = eventService.findById(eventId);
+        LocalDateTime now = LocalDateTime.now();
+        ParticipantBroadcast broadcast = participantBroadcastRepository.save(ParticipantBroadcast.builder()
+            .event(event)
+            .subject(request.subject())
+            .message(request.message())
+            .status(ParticipantBroadcastStatus.IN_PROGRESS)
+            .total(0)
+            .createdTime(now)
+            .build());
+
+        int total = participantBroadcastDeliveryRepository.createForEventParticipants(broadcast.getId(), eventId, now);
+        broadcast.setTotal(total);
+        if (total == 0) {
+            broadcast.setStatus(ParticipantBroadcastStatus.COMPLETED);
+            broadcast.setCompletedTime(now);
+        }
+        participantBroadcastRepository.save(broadcast);
+        return ParticipantMapper.participantBroadcastToResponse(broadcast, total, 0, 0);
+    }
+
+    public ParticipantBroadcastResponse getBroadcast(Integer eventId, Integer broadcastId) {
+        ParticipantBroadcast broadcast = participantBroadcastRepository.findByIdAndEventId(broadcastId, eventId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.PARTICIPANT_BROADCAST_NOT_FOUND_MESSAGE));
+        return ParticipantMapper.participantBroadcastToResponse(broadcast,
+            participantBroadcastDeliveryRepository.countByBroadcastIdAndStatus(broadcastId, EmailOutboxStatus.PENDING),
+            participantBroadcastDeliveryRepository.countByBroadcastIdAndStatus(broadcastId, EmailOutboxStatus.SENT),
+            participantBroadcastDeliveryRepository.countByBroadcastIdAndStatus(broadcastId, EmailOutboxStatus.FAILED));
+    }
+}
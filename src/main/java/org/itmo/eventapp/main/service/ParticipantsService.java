@@ -1,28 +1,39 @@
 package org.itmo.eventapp.main.service;
 
-import jakarta.transaction.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
 import org.itmo.eventapp.main.minio.MinioService;
 import org.itmo.eventapp.main.model.dto.request.ParticipantPresenceRequest;
+import org.itmo.eventapp.main.model.dto.response.ParticipantImportErrorResponse;
+import org.itmo.eventapp.main.model.dto.response.ParticipantsImportResponse;
 import org.itmo.eventapp.main.model.entity.Participant;
+import org.itmo.eventapp.main.model.mapper.ParticipantMapper;
 import org.itmo.eventapp.main.repository.ParticipantsRepository;
+import org.itmo.eventapp.main.util.XlsxRowReader;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
@@ -35,6 +46,22 @@ public class ParticipantsService {
     private static final String EMAIL = "Email";
     private static final String PHONE = "Телефон";
 
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+    private static final int MAX_FIELD_LENGTH = 256;
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+$");
+
+    @Value("${participants.import-batch-size:500}")
+    private Integer importBatchSize;
+
+    @Value("${participants.import-max-errors:100}")
+    private Integer importMaxErrors;
+
+    @Value("${participants.export-row-window:100}")
+    private Integer exportRowWindow;
+
     public List<Participant> getParticipants(Integer id) {
         return participantsRepository.findAllByEventId(id);
     }
@@ -46,89 +73,119 @@ public class ParticipantsService {
         return participant;
     }
 
-    @Transactional
-    public List<Participant> setParticipants(Integer eventId, MultipartFile participantsListFile) throws IOException {
-        participantsRepository.deleteAllByEventId(eventId);
-        List<Participant> participants = new ArrayList<>();
-
+    /**
+     * Заменяет список участников мероприятия списком из XLSX файла. Файл читается построчно,
+     * участники вставляются пачками по import-batch-size. Прежний список удаляется в той же транзакции,
+     * что и вставляются все пачки, поэтому при ошибке посреди файла он остается целым.
+     * Строки с ошибками пропускаются и попадают в отчет, остальные строки файла импортируются
+     */
+    public ParticipantsImportResponse setParticipants(Integer eventId, MultipartFile participantsListFile) throws IOException {
+        eventService.findById(eventId);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ImportBatch batch = new ImportBatch(eventId);
+
+        // XLSX - zip архив, его части читаются по отдельности только из файла
+        Path xlsx = Files.createTempFile("participants-", ".xlsx");
         try {
-            InputStream list = participantsListFile.getInputStream();
-            Workbook workbook = new XSSFWorkbook(list);
-            boolean correctColumns = checkColumns(workbook);
-            if (!correctColumns)
-                throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, ExceptionConst.EXCEL_COLUMNS_ERROR);
-            List<Map<String, Object>> data = excelParsing(workbook);
-
-            int counter = 0;
-            for (int y = 0; y < data.size(); y++) {
-                Participant participant = new Participant();
-                participant.setName(data.get(counter).get(NAME).toString());
-                participant.setEmail(data.get(counter).get(EMAIL).toString());
-                participant.setAdditionalInfo(data.get(counter).get(PHONE).toString());
-                participant.setEvent(eventService.findById(eventId));
-                participant.setVisited(false);
-                participantsRepository.save(participant);
-                participants.add(participant);
-                counter++;
+            try (InputStream list = participantsListFile.getInputStream()) {
+                Files.copy(list, xlsx, StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException e) {
+            transactionTemplate.executeWithoutResult(status -> {
+                participantsRepository.deleteAllByEventId(eventId);
+                if (!readParticipants(xlsx, batch)) {
+                    // исключение откатывает и удаление прежнего списка
+                    throw new ResponseStatusException(HttpStatus.NOT_ACCEPTABLE, ExceptionConst.EXCEL_COLUMNS_ERROR);
+                }
+                // и пустой файл заменяет прежний список
+                batch.flush();
+            });
+        } catch (IOException | UncheckedIOException e) {
             throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, ExceptionConst.PARTICIPANTS_LIST_PARSING_ERROR);
+        } finally {
+            Files.deleteIfExists(xlsx);
         }
         savetoMinio(participantsListFile, eventId);
-        return participants;
+        return new ParticipantsImportResponse(
+            ParticipantMapper.participantsToResponseList(participantsRepository.findAllByEventId(eventId)),
+            batch.skippedCount, batch.errors);
     }
 
-    private boolean checkColumns(Workbook workbook) {
-        Sheet excelSheet = workbook.getSheetAt(0);
-        Row row = excelSheet.getRow(0);
-
-        int exist = 0;
-        for (Cell cell : row) {
-            if (cell.getStringCellValue().equals(NAME) || cell.getStringCellValue().equals(EMAIL) || cell.getStringCellValue().equals(PHONE)) {
-                exist++;
-            }
+    private boolean readParticipants(Path xlsx, ImportBatch batch) {
+        try {
+            return XlsxRowReader.read(xlsx.toFile(), List.of(NAME, EMAIL, PHONE), (rowNumber, values) -> {
+                String error = validate(values);
+                if (error != null) {
+                    batch.reject(rowNumber + 1, error);
+                    return;
+                }
+                batch.add(values);
+                if (batch.size() == importBatchSize) {
+                    batch.flush();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-
-        return exist == 3;
     }
 
-    private List<Map<String, Object>> excelParsing(Workbook workbook) {
+    private static String validate(String[] values) {
+        if (values[0].isEmpty()) {
+            return ExceptionConst.PARTICIPANT_NAME_MISSING;
+        }
+        if (values[1].isEmpty()) {
+            return ExceptionConst.PARTICIPANT_EMAIL_MISSING;
+        }
+        if (values[0].length() > MAX_FIELD_LENGTH) {
+            return String.format(ExceptionConst.PARTICIPANT_FIELD_TOO_LONG, NAME, MAX_FIELD_LENGTH);
+        }
+        if (values[1].length() > MAX_FIELD_LENGTH) {
+            return String.format(ExceptionConst.PARTICIPANT_FIELD_TOO_LONG, EMAIL, MAX_FIELD_LENGTH);
+        }
+        if (!EMAIL_PATTERN.matcher(values[1]).matches()) {
+            return ExceptionConst.PARTICIPANT_EMAIL_INVALID;
+        }
+        return null;
+    }
 
-        Sheet excelSheet = workbook.getSheetAt(0);
-        List<Map<String, Object>> data = new ArrayList<>();
+    // накапливает строки файла и вставляет их одним запросом на пачку в транзакции импорта
+    private class ImportBatch {
+        private final Integer eventId;
+        private final List<String> names = new ArrayList<>();
+        private final List<String> emails = new ArrayList<>();
+        private final List<String> additionalInfos = new ArrayList<>();
+        private final List<ParticipantImportErrorResponse> errors = new ArrayList<>();
+        private int skippedCount;
+
+        ImportBatch(Integer eventId) {
+            this.eventId = eventId;
+        }
 
-        for (Row row : excelSheet) {
-            outerLoop:
-            if (row.getRowNum() != 0) {
-                Map<String, Object> participant = new HashMap<>();
-                for (Cell cell : row) {
-                    participant = parseCell(excelSheet, cell, participant);
-                    if (cell.getCellType() == Cell.CELL_TYPE_BLANK && cell.getColumnIndex() == 0) {
-                        break outerLoop;
-                    }
-                }
-                if (participant.isEmpty()) break;
-                data.add(participant);
-            }
+        void add(String[] values) {
+            names.add(values[0]);
+            emails.add(values[1]);
+            additionalInfos.add(values[2]);
         }
 
-        return data;
+        int size() {
+            return names.size();
+        }
 
-    }
+        void reject(int row, String message) {
+            skippedCount++;
+            if (errors.size() < importMaxErrors) {
+                errors.add(new ParticipantImportErrorResponse(row, message));
+            }
+        }
 
-    private Map<String, Object> parseCell(Sheet excelSheet, Cell cell, Map<String, Object> participant) {
-        String columnName = excelSheet.getRow(0).getCell(cell.getColumnIndex()).getStringCellValue();
-        if (cell.getCellType() == Cell.CELL_TYPE_STRING) {
-            participant.put(columnName, cell.getStringCellValue());
-            if (cell.getColumnIndex() == 0 && cell.getStringCellValue().trim().isEmpty()) {
-                return participant;
+        void flush() {
+            if (!names.isEmpty()) {
+                participantsRepository.insertAll(eventId, names.toArray(String[]::new),
+                    emails.toArray(String[]::new), additionalInfos.toArray(String[]::new));
             }
-        } else if (cell.getCellType() == Cell.CELL_TYPE_NUMERIC) {
-            participant.put(columnName, cell.getNumericCellValue());
-        } else if (cell.getCellType() == Cell.CELL_TYPE_FORMULA) {
-            participant.put(columnName, cell.getCellFormula());
+            names.clear();
+            emails.clear();
+            additionalInfos.clear();
         }
-        return participant;
     }
 
     private void savetoMinio(MultipartFile file, Integer id) {
@@ -138,57 +195,58 @@ public class ParticipantsService {
         }
     }
 
-    public String getParticipantsXlsx(Integer eventId) throws IOException {
-        List<Participant> participants = getParticipants(eventId);
-        Workbook book = new XSSFWorkbook();
-
-        Sheet sheet = book.createSheet("Участники");
-        sheet.setColumnWidth(0, 10000);
-        sheet.setColumnWidth(1, 10000);
-        sheet.setColumnWidth(2, 10000);
-        sheet.setColumnWidth(3, 8000);
-        sheet.setColumnWidth(4, 6000);
-
-        Row header = sheet.createRow(0);
-        Cell headerCell = header.createCell(0);
-        headerCell.setCellValue(NAME);
-        headerCell = header.createCell(1);
-        headerCell.setCellValue(EMAIL);
-        headerCell = header.createCell(2);
-        headerCell.setCellValue("Дополнительная информация");
-        headerCell = header.createCell(3);
-        headerCell.setCellValue("Мероприятие");
-        headerCell = header.createCell(4);
-        headerCell.setCellValue("Посещение");
-
-        int index = 1;
-        for (Participant participant : participants) {
-            Row row = sheet.createRow(index);
-            Cell cell = row.createCell(0);
-            cell.setCellValue(participant.getName());
-            cell = row.createCell(1);
-            cell.setCellValue(participant.getEmail());
-            cell = row.createCell(2);
-            cell.setCellValue(participant.getAdditionalInfo());
-            cell = row.createCell(3);
-            cell.setCellValue(participant.getEvent().getTitle());
-            cell = row.createCell(4);
-            if (participant.isVisited()) {
-                cell.setCellValue("Присутствовал(-а)");
-            } else {
-                cell.setCellValue("Не присутствовал(-а)");
+    /**
+     * XLSX файл со списком участников, строки читаются из базы курсором и пишутся в ответ по мере чтения.
+     * В памяти держится не больше export-row-window строк листа
+     */
+    public StreamingResponseBody getParticipantsXlsx(Integer eventId) {
+        String eventTitle = eventService.findById(eventId).getTitle();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        return output -> {
+            SXSSFWorkbook book = new SXSSFWorkbook(exportRowWindow);
+            book.setCompressTempFiles(true);
+            try {
+                Sheet sheet = book.createSheet("Участники");
+                sheet.setColumnWidth(0, 10000);
+                sheet.setColumnWidth(1, 10000);
+                sheet.setColumnWidth(2, 10000);
+                sheet.setColumnWidth(3, 8000);
+                sheet.setColumnWidth(4, 6000);
+
+                Row header = sheet.createRow(0);
+                header.createCell(0).setCellValue(NAME);
+                header.createCell(1).setCellValue(EMAIL);
+                header.createCell(2).setCellValue("Дополнительная информация");
+                header.createCell(3).setCellValue("Мероприятие");
+                header.createCell(4).setCellValue("Посещение");
+
+                // курсор с fetch size работает только внутри транзакции
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<Participant> participants = participantsRepository.streamAllByEventId(eventId)) {
+                        int index = 1;
+                        for (Participant participant : (Iterable<Participant>) participants::iterator) {
+                            Row row = sheet.createRow(index++);
+                            row.createCell(0).setCellValue(participant.getName());
+                            row.createCell(1).setCellValue(participant.getEmail());
+                            // SXSSF падает на null, ячейка без дополнительной информации остается пустой, как в XSSF
+                            if (participant.getAdditionalInfo() != null) {
+                                row.createCell(2).setCellValue(participant.getAdditionalInfo());
+                            }
+                            row.createCell(3).setCellValue(eventTitle);
+                            row.createCell(4).setCellValue(participant.isVisited() ? "Присутствовал(-а)" : "Не присутствовал(-а)");
+                            // записанные участники не нужны контексту, иначе он растет вместе со списком
+                            entityManager.detach(participant);
+                        }
+                    }
+                });
+                book.write(output);
+            } finally {
+                book.dispose();
+                book.close();
             }
-            index++;
-        }
-
-        File list = new File("/ListOfParticipants.xlsx");
-
-        FileOutputStream outputStream = new FileOutputStream(list);
-        book.write(outputStream);
-        book.close();
-
-        return list.getAbsolutePath();
-
+        };
     }
 
 }
@@ -6,12 +6,18 @@ import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
 import org.itmo.eventapp.main.minio.MinioService;
 import org.itmo.eventapp.main.model.dto.request.TaskRequest;
 import org.itmo.eventapp.main.model.dto.response.FileDataResponse;
+import org.itmo.eventapp.main.model.dto.response.FileUploadIntentResponse;
+import org.itmo.eventapp.main.model.dto.response.FilesSummaryResponse;
 import org.itmo.eventapp.main.model.entity.*;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
 import org.itmo.eventapp.main.model.entity.enums.TaskStatus;
 import org.itmo.eventapp.main.model.mapper.TaskMapper;
+import org.itmo.eventapp.main.repository.FileObjectRepository;
 import org.itmo.eventapp.main.repository.TaskRepository;
 import org.itmo.eventapp.main.service.specification.TaskSpecification;
+import org.itmo.eventapp.main.util.SizeLimitedInputStream;
 import org.itmo.eventapp.main.util.TaskNotificationUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -22,12 +28,16 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.InputStream;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @RequiredArgsConstructor(onConstructor_ = {@Lazy})
@@ -45,6 +55,10 @@ public class TaskService {
     private final TaskReminderTriggerService taskReminderTriggerService;
     private final TaskDeadlineTriggerService taskDeadlineTriggerService;
     private final MinioService minioService;
+    private final FileObjectService fileObjectService;
+
+    @Value("${minio.stream-upload-max-size-in-bytes:104857600}")
+    private Long streamUploadMaxSizeInBytes;
 
     public Task findById(int id) {
         return taskRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
@@ -138,11 +152,13 @@ public class TaskService {
         return newTaskData;
     }
 
+    @Transactional
     public void delete(Integer id) {
-        minioService.deleteImageByPrefix(BUCKET_NAME, id.toString() + "_");
         taskRepository.deleteById(id);
+        minioService.deleteFilesLater(FileOwnerType.TASK, List.of(id));
     }
 
+    @Transactional
     public void deleteAllByActivityId(Integer eventId) {
 
         Event activity = eventService.getEventById(eventId);
@@ -151,10 +167,8 @@ public class TaskService {
         }
 
         List<Task> tasksToDelete = taskRepository.findAllByEventId(eventId);
-        for (Task task : tasksToDelete) {
-            minioService.deleteImageByPrefix(BUCKET_NAME, task.getId().toString() + "_");
-        }
         taskRepository.deleteAll(tasksToDelete);
+        minioService.deleteFilesLater(FileOwnerType.TASK, tasksToDelete.stream().map(Task::getId).toList());
     }
 
 
@@ -164,17 +178,11 @@ public class TaskService {
 
         if (!Objects.isNull(files)) {
 
+            Map<String, MultipartFile> filesInMinio = new LinkedHashMap<>();
             for (MultipartFile file : files) {
-
-                String modifiedFileName = task.getId().toString()
-                        + "_"
-                        + FilenameUtils.getBaseName(file.getOriginalFilename())
-                        + "__"
-                        + LocalDateTime.now()
-                        + "."
-                        + FilenameUtils.getExtension(file.getOriginalFilename());
-                minioService.uploadWithModifiedFileName(file, BUCKET_NAME, modifiedFileName);
+                filesInMinio.put(getTaskFileName(task, file.getOriginalFilename()), file);
             }
+            minioService.uploadAllWithModifiedFileNames(filesInMinio, BUCKET_NAME);
 
         }
 
@@ -182,8 +190,44 @@ public class TaskService {
 
     }
 
+    /**
+     * Загружает файл задачи в хранилище прямо из тела запроса. Ограничение multipart запросов сюда не действует,
+     * поэтому файл больше stream-upload-max-size-in-bytes отклоняется по заявленному размеру или прерывается при чтении
+     *
+     * @param size размер файла, -1 если неизвестен
+     */
+    public List<FileDataResponse> addFileStream(Integer id, String originalFileName, InputStream stream, long size, String contentType) {
 
-    public void deleteFiles(Integer id, List<String> fileNamesInMinio) {
+        Task task = taskRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
+
+        if (size > streamUploadMaxSizeInBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, String.format(ExceptionConst.FILE_TOO_LARGE_MESSAGE, streamUploadMaxSizeInBytes));
+        }
+        minioService.uploadStream(new SizeLimitedInputStream(stream, streamUploadMaxSizeInBytes), size, contentType,
+                BUCKET_NAME, getTaskFileName(task, originalFileName));
+
+        return getFileData(id);
+    }
+
+
+    /**
+     * Выдает ссылки для загрузки файлов задачи напрямую в хранилище, после загрузки клиент вызывает confirmFileUploads
+     */
+    public List<FileUploadIntentResponse> createFileUploadIntents(Integer id, List<String> originalFileNames) {
+
+        Task task = taskRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(minioService.getPresignedUploadExpiryInSeconds());
+        return originalFileNames.stream()
+                .map(originalFileName -> {
+                    String modifiedFileName = getTaskFileName(task, originalFileName);
+                    return new FileUploadIntentResponse(modifiedFileName,
+                            minioService.getPresignedUploadUrl(BUCKET_NAME, modifiedFileName), expiresAt);
+                })
+                .toList();
+    }
+
+    public List<FileDataResponse> confirmFileUploads(Integer id, List<String> fileNamesInMinio) {
 
         Task task = taskRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
 
@@ -193,18 +237,101 @@ public class TaskService {
         }
 
         for (String filename : fileNamesInMinio) {
-            minioService.delete(BUCKET_NAME, filename);
+            if (!minioService.confirmUpload(BUCKET_NAME, filename)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(ExceptionConst.FILE_NOT_UPLOADED_MESSAGE, filename));
+            }
         }
 
+        return getFileData(id);
+    }
+
+    public void deleteFiles(Integer id, List<String> fileNamesInMinio) {
+
+        Task task = taskRepository.findById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
+
+        boolean allBelong = fileNamesInMinio.stream().allMatch(filename -> filename.startsWith(task.getId().toString() + "_"));
+        if (!allBelong) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ExceptionConst.INVALID_TASK_FILE_NAMES_MESSAGE);
+        }
+
+        minioService.deleteAll(BUCKET_NAME, fileNamesInMinio);
+
+    }
+
+    // Имя объекта в хранилище: <taskId>_<имя файла>__<время загрузки>.<расширение>
+    private String getTaskFileName(Task task, String originalFileName) {
+        return task.getId().toString()
+                + "_"
+                + FilenameUtils.getBaseName(originalFileName)
+                + "__"
+                + LocalDateTime.now()
+                + "."
+                + FilenameUtils.getExtension(originalFileName);
     }
 
     public List<String> getFileNames(Integer taskId) {
-        return minioService.getFileNamesByPrefix(BUCKET_NAME, taskId.toString() + "_");
+        return fileObjectService.getFiles(FileOwnerType.TASK, taskId).stream()
+                .map(FileObject::getObjectKey)
+                .toList();
     }
 
 
     public List<FileDataResponse> getFileData(Integer taskId) {
-        return minioService.getFileDataByPrefix(BUCKET_NAME, taskId.toString() + "_");
+        return minioService.getFileData(fileObjectService.getFiles(FileOwnerType.TASK, taskId));
+    }
+
+    /**
+     * ZIP архив со всеми файлами задачи, файлы читаются из хранилища во время записи ответа
+     */
+    public StreamingResponseBody getFilesZip(Integer taskId) {
+
+        taskRepository.findById(taskId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ExceptionConst.TASK_NOT_FOUND_MESSAGE));
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (FileObject file : fileObjectService.getFiles(FileOwnerType.TASK, taskId)) {
+            putZipEntry(entries, getOriginalFileName(file.getObjectKey()), file.getBlobKey());
+        }
+        return output -> minioService.writeZip(BUCKET_NAME, entries, output);
+    }
+
+    /**
+     * ZIP архив с файлами всех задач мероприятия, файлы задачи лежат в папке с id задачи
+     */
+    public StreamingResponseBody getEventFilesZip(Integer eventId) {
+
+        List<Integer> taskIds = taskRepository.findAllByEventId(eventId).stream().map(Task::getId).toList();
+
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (FileObject file : fileObjectService.getFiles(FileOwnerType.TASK, taskIds)) {
+            putZipEntry(entries, file.getOwnerId() + "/" + getOriginalFileName(file.getObjectKey()), file.getBlobKey());
+        }
+        return output -> minioService.writeZip(BUCKET_NAME, entries, output);
+    }
+
+    // одинаковые имена файлов в архиве недопустимы, поэтому к повторам добавляется номер
+    private void putZipEntry(Map<String, String> entries, String name, String object) {
+        String entryName = name;
+        for (int i = 2; entries.containsKey(entryName); i++) {
+            String extension = FilenameUtils.getExtension(name);
+            entryName = FilenameUtils.removeExtension(name) + " (" + i + ")" + (extension.isEmpty() ? "" : "." + extension);
+        }
+        entries.put(entryName, object);
+    }
+
+    // Исходное имя файла из имени объекта <taskId>_<имя файла>__<время загрузки>.<расширение>
+    static String getOriginalFileName(String fileName) {
+        String name = fileName.substring(fileName.indexOf('_') + 1);
+        int uploadTimeStart = name.lastIndexOf("__");
+        if (uploadTimeStart < 0) {
+            return name;
+        }
+        String extension = FilenameUtils.getExtension(name);
+        return name.substring(0, uploadTimeStart) + (extension.isEmpty() ? "" : "." + extension);
+    }
+
+    public FilesSummaryResponse getFilesSummary(Integer taskId) {
+        FileObjectRepository.FilesSummary summary = fileObjectService.getSummary(FileOwnerType.TASK, taskId);
+        return new FilesSummaryResponse(summary.getCount(), summary.getTotalSize());
     }
 
 
@@ -0,0 +1,291 @@
+package org.itmo.eventapp.main.storage;
+
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Хранит объекты в файлах каталога storage.filesystem.root: объект - root/bucket/key,
+ * его тип и заголовки - root/.metadata/bucket/key.properties.
+ * Объект записывается во временный файл и атомарно подменяет прежний, поэтому копии-жесткие ссылки
+ * не меняются при перезаписи оригинала. Объекты отдаются и принимаются StorageController.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "filesystem")
+public class FileSystemObjectStorage implements ObjectStorage {
+
+    private static final Pattern BUCKET_NAME_PATTERN = Pattern.compile("^[a-z0-9][a-z0-9.-]{1,62}$");
+    private static final String METADATA_DIRECTORY = ".metadata";
+    private static final String TEMP_DIRECTORY = ".tmp";
+    private static final String CONTENT_TYPE_PROPERTY = "contentType";
+    private static final String ETAG_PROPERTY = "etag";
+    private static final String HEADER_PROPERTY_PREFIX = "header.";
+
+    private final Path root;
+    private final String publicUrl;
+    private final SecretKeySpec signingKey;
+
+    public FileSystemObjectStorage(@Value("${storage.filesystem.root:storage}") String root,
+                                   @Value("${storage.filesystem.public-url:http://localhost:8080}") String publicUrl,
+                                   @Value("${storage.filesystem.signing-key:${security.secret}}") String signingKey) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.publicUrl = publicUrl;
+        this.signingKey = new SecretKeySpec(signingKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        Files.createDirectories(this.root.resolve(TEMP_DIRECTORY));
+    }
+
+    @Override
+    public boolean bucketExists(String bucket) {
+        return Files.isDirectory(getBucketPath(bucket));
+    }
+
+    @Override
+    @SneakyThrows
+    public void createBucket(String bucket) {
+        Files.createDirectories(getBucketPath(bucket));
+    }
+
+    @Override
+    @SneakyThrows
+    public StoredObject put(String bucket, String key, InputStream stream, long size, String contentType, Map<String, String> headers) {
+        Path path = getObjectPath(bucket, key);
+        if (!bucketExists(bucket)) {
+            throw new NoSuchFileException("Bucket " + bucket + " does not exist");
+        }
+        Path temp = Files.createTempFile(root.resolve(TEMP_DIRECTORY), "upload-", ".tmp");
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            long written;
+            try (InputStream digestStream = new DigestInputStream(stream, md5);
+                 OutputStream output = Files.newOutputStream(temp)) {
+                written = digestStream.transferTo(output);
+            }
+            if (size >= 0 && written != size) {
+                throw new IOException("Expected " + size + " bytes of object " + key + ", got " + written);
+            }
+            String etag = HexFormat.of().formatHex(md5.digest());
+
+            Properties metadata = new Properties();
+            if (contentType != null) {
+                metadata.setProperty(CONTENT_TYPE_PROPERTY, contentType);
+            }
+            metadata.setProperty(ETAG_PROPERTY, etag);
+            headers.forEach((name, value) -> metadata.setProperty(HEADER_PROPERTY_PREFIX + name, value));
+            writeMetadata(bucket, key, metadata);
+
+            Files.createDirectories(path.getParent());
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new StoredObject(key, written, contentType, etag, LocalDateTime.now());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    @SneakyThrows
+    public InputStream get(String bucket, String key) {
+        return Files.newInputStream(getObjectPath(bucket, key));
+    }
+
+    @Override
+    @SneakyThrows
+    public Optional<StoredObject> stat(String bucket, String key) {
+        Path path = getObjectPath(bucket, key);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        Properties metadata = readMetadata(bucket, key);
+        return Optional.of(new StoredObject(key, Files.size(path), metadata.getProperty(CONTENT_TYPE_PROPERTY),
+                metadata.getProperty(ETAG_PROPERTY), getLastModified(path)));
+    }
+
+    /**
+     * Заголовки, сохраненные вместе с объектом
+     */
+    public Map<String, String> getHeaders(String bucket, String key) {
+        Properties metadata = readMetadata(bucket, key);
+        Map<String, String> headers = new HashMap<>();
+        for (String name : metadata.stringPropertyNames()) {
+            if (name.startsWith(HEADER_PROPERTY_PREFIX)) {
+                headers.put(name.substring(HEADER_PROPERTY_PREFIX.length()), metadata.getProperty(name));
+            }
+        }
+        return headers;
+    }
+
+    @Override
+    @SneakyThrows
+    public List<StoredObject> list(String bucket, String prefix) {
+        Path bucketPath = getBucketPath(bucket);
+        if (!Files.isDirectory(bucketPath)) {
+            return List.of();
+        }
+        List<StoredObject> objects = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(bucketPath)) {
+            for (Path path : paths.filter(Files::isRegularFile).toList()) {
+                String key = bucketPath.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/");
+                if (key.startsWith(prefix)) {
+                    Properties metadata = readMetadata(bucket, key);
+                    objects.add(new StoredObject(key, Files.size(path), metadata.getProperty(CONTENT_TYPE_PROPERTY),
+                            metadata.getProperty(ETAG_PROPERTY), getLastModified(path)));
+                }
+            }
+        }
+        objects.sort((first, second) -> first.key().compareTo(second.key()));
+        return objects;
+    }
+
+    /**
+     * Копия - жесткая ссылка на файл оригинала, содержимое копируется, только если ссылку создать нельзя
+     */
+    @Override
+    @SneakyThrows
+    public String copy(String sourceBucket, String sourceKey, String bucket, String key) {
+        Path source = getObjectPath(sourceBucket, sourceKey);
+        Path target = getObjectPath(bucket, key);
+        Files.createDirectories(target.getParent());
+        Path temp = root.resolve(TEMP_DIRECTORY).resolve("copy-" + System.nanoTime() + "-" + Thread.currentThread().getId());
+        try {
+            try {
+                Files.createLink(temp, source);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(source, temp);
+            }
+            writeMetadata(bucket, key, readMetadata(sourceBucket, sourceKey));
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return readMetadata(bucket, key).getProperty(ETAG_PROPERTY);
+    }
+
+    @Override
+    public List<String> delete(String bucket, List<String> keys) {
+        List<String> failedKeys = new ArrayList<>();
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(getObjectPath(bucket, key));
+                Files.deleteIfExists(getMetadataPath(bucket, key));
+            } catch (IOException e) {
+                log.warn("Failed to delete object {} from bucket {}: {}", key, bucket, e.getMessage());
+                failedKeys.add(key);
+            }
+        }
+        return failedKeys;
+    }
+
+    @Override
+    public String getPresignedUrl(HttpMethod method, String bucket, String key, int expiryInSeconds) {
+        long expires = Instant.now().plusSeconds(expiryInSeconds).getEpochSecond();
+        return getPublicUrl(bucket, key) + "?expires=" + expires + "&signature=" + sign(method, bucket, key, expires);
+    }
+
+    @Override
+    public String getPublicUrl(String bucket, String key) {
+        return publicUrl + "/api/storage/" + bucket + "/" + UriUtils.encodePathSegment(key, StandardCharsets.UTF_8);
+    }
+
+    public boolean isValidSignature(HttpMethod method, String bucket, String key, long expires, String signature) {
+        if (expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(method, bucket, key, expires).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Файл объекта, ключ не может выходить за пределы каталога бакета
+     */
+    public Path getObjectPath(String bucket, String key) {
+        return resolveKey(getBucketPath(bucket), key);
+    }
+
+    private Path getBucketPath(String bucket) {
+        if (!BUCKET_NAME_PATTERN.matcher(bucket).matches()) {
+            throw new IllegalArgumentException("Invalid bucket name: " + bucket);
+        }
+        return root.resolve(bucket);
+    }
+
+    private Path getMetadataPath(String bucket, String key) {
+        return resolveKey(root.resolve(METADATA_DIRECTORY).resolve(getBucketPath(bucket).getFileName()), key + ".properties");
+    }
+
+    private Path resolveKey(Path directory, String key) {
+        Path path = directory.resolve(key).normalize();
+        if (key.isEmpty() || !path.startsWith(directory) || path.equals(directory)) {
+            throw new IllegalArgumentException("Invalid object key: " + key);
+        }
+        return path;
+    }
+
+    @SneakyThrows
+    private Properties readMetadata(String bucket, String key) {
+        Properties metadata = new Properties();
+        try (Reader reader = Files.newBufferedReader(getMetadataPath(bucket, key), StandardCharsets.UTF_8)) {
+            metadata.load(reader);
+        } catch (NoSuchFileException e) {
+            // объект положили в каталог в обход хранилища
+        }
+        return metadata;
+    }
+
+    private void writeMetadata(String bucket, String key, Properties metadata) throws IOException {
+        Path path = getMetadataPath(bucket, key);
+        Files.createDirectories(path.getParent());
+        Path temp = Files.createTempFile(root.resolve(TEMP_DIRECTORY), "metadata-", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                metadata.store(writer, null);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private LocalDateTime getLastModified(Path path) throws IOException {
+        return LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault());
+    }
+
+    @SneakyThrows
+    private String sign(HttpMethod method, String bucket, String key, long expires) {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(signingKey);
+        byte[] signature = mac.doFinal((method.name() + "\n" + bucket + "\n" + key + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(signature);
+    }
+}
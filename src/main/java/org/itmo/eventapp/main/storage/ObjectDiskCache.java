@@ -0,0 +1,233 @@
+package org.itmo.eventapp.main.storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Локальный дисковый кэш объектов хранилища для скачивания через FileController.
+ * Объем кэша ограничен max-size-in-bytes, при переполнении удаляются давно не читавшиеся объекты.
+ * Закэшированный объект сверяется с хранилищем по ETag не чаще раза в revalidate-after-in-seconds.
+ */
+@Log4j2
+@RequiredArgsConstructor
+@Component
+@ConditionalOnProperty(name = "storage.disk-cache.enabled", havingValue = "true")
+public class ObjectDiskCache {
+
+    // объекты загружаются в кэш под блокировкой своей полосы, чтобы один объект не скачивался дважды
+    private static final int LOAD_LOCK_STRIPES = 64;
+
+    private final ObjectStorage storage;
+
+    @Value("${storage.disk-cache.directory:cache}")
+    private String directory;
+
+    @Value("${storage.disk-cache.max-size-in-bytes:1073741824}")
+    private Long maxSizeInBytes;
+
+    @Value("${storage.disk-cache.max-object-size-in-bytes:52428800}")
+    private Long maxObjectSizeInBytes;
+
+    @Value("${storage.disk-cache.revalidate-after-in-seconds:60}")
+    private Integer revalidateAfterInSeconds;
+
+    private Path root;
+    private Path tempDirectory;
+    // порядок доступа: первым идет давно не читавшийся объект
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+    private final Object[] loadLocks = new Object[LOAD_LOCK_STRIPES];
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private record Key(String bucket, String object) {
+    }
+
+    private record Entry(CachedObject object, long validatedAtNanos) {
+    }
+
+    /**
+     * @param path файл в кэше, null если объект больше max-object-size-in-bytes и не кэшируется
+     */
+    public record CachedObject(Path path, long size, String contentType, String etag) {
+    }
+
+    public record Stats(long hits, long misses, int size, long sizeInBytes, double hitRate) {
+    }
+
+    /**
+     * Файлы прошлого запуска не попадают в индекс кэша, поэтому каталог очищается
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        for (int i = 0; i < LOAD_LOCK_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+        root = Path.of(directory).toAbsolutePath().normalize();
+        FileSystemUtils.deleteRecursively(root);
+        tempDirectory = Files.createDirectories(root.resolve(".tmp"));
+    }
+
+    /**
+     * Возвращает объект из кэша, при необходимости сверив его с хранилищем или скачав заново
+     *
+     * @return пусто, если объекта нет в хранилище
+     */
+    public Optional<CachedObject> get(String bucket, String object) {
+        Key key = new Key(bucket, object);
+        Entry entry = getEntry(key);
+        if (entry != null && isFresh(entry)) {
+            hits.incrementAndGet();
+            return Optional.of(entry.object());
+        }
+
+        synchronized (loadLocks[Math.floorMod(key.hashCode(), LOAD_LOCK_STRIPES)]) {
+            // объект мог загрузить поток, который держал блокировку до нас
+            entry = getEntry(key);
+            if (entry != null && isFresh(entry)) {
+                hits.incrementAndGet();
+                return Optional.of(entry.object());
+            }
+
+            Optional<StoredObject> stored = storage.stat(bucket, object);
+            if (stored.isEmpty()) {
+                invalidate(bucket, object);
+                return Optional.empty();
+            }
+            StoredObject stat = stored.get();
+            if (entry != null && Objects.equals(entry.object().etag(), stat.etag())) {
+                hits.incrementAndGet();
+                putEntry(key, new Entry(entry.object(), System.nanoTime()));
+                return Optional.of(entry.object());
+            }
+
+            misses.incrementAndGet();
+            if (stat.size() > maxObjectSizeInBytes) {
+                invalidate(bucket, object);
+                return Optional.of(new CachedObject(null, stat.size(), stat.contentType(), stat.etag()));
+            }
+            CachedObject loaded = load(key, stat);
+            putEntry(key, new Entry(loaded, System.nanoTime()));
+            return Optional.of(loaded);
+        }
+    }
+
+    public void invalidate(String bucket, String object) {
+        Entry removed;
+        synchronized (entries) {
+            removed = entries.remove(new Key(bucket, object));
+            if (removed != null) {
+                totalSize -= removed.object().size();
+            }
+        }
+        if (removed != null) {
+            deleteFile(removed.object().path());
+        }
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        synchronized (entries) {
+            return new Stats(hitCount, missCount, entries.size(), totalSize, total == 0 ? 0 : (double) hitCount / total);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${storage.disk-cache.stats-period-in-millis:600000}")
+    public void logStats() {
+        Stats stats = getStats();
+        log.info("Object disk cache: {} objects, {} bytes, hit rate {} ({} hits, {} misses)",
+                stats.size(), stats.sizeInBytes(), String.format("%.2f", stats.hitRate()), stats.hits(), stats.misses());
+    }
+
+    private boolean isFresh(Entry entry) {
+        return System.nanoTime() - entry.validatedAtNanos() < TimeUnit.SECONDS.toNanos(revalidateAfterInSeconds);
+    }
+
+    private Entry getEntry(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    @SneakyThrows
+    private CachedObject load(Key key, StoredObject stat) {
+        Path path = root.resolve(fileName(key, stat.etag()));
+        Path temp = Files.createTempFile(tempDirectory, "object-", ".tmp");
+        try {
+            long size;
+            try (InputStream stream = storage.get(key.bucket(), key.object())) {
+                size = Files.copy(stream, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // у новой версии объекта другой ETag и другой файл, файл прошлой версии не перезаписывается под читателями
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new CachedObject(path, size, stat.contentType(), stat.etag());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void putEntry(Key key, Entry entry) {
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalSize -= previous.object().size();
+                if (!previous.object().path().equals(entry.object().path())) {
+                    // открытый файл прошлой версии дочитывается до закрытия
+                    deleteFile(previous.object().path());
+                }
+            }
+            totalSize += entry.object().size();
+
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (totalSize > maxSizeInBytes && eldest.hasNext()) {
+                Map.Entry<Key, Entry> evicted = eldest.next();
+                if (evicted.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                totalSize -= evicted.getValue().object().size();
+                deleteFile(evicted.getValue().object().path());
+            }
+        }
+    }
+
+    private void deleteFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Failed to delete cached object {}: {}", path, e.getMessage());
+        }
+    }
+
+    @SneakyThrows
+    private static String fileName(Key key, String etag) {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] hash = sha256.digest((key.bucket() + "/" + key.object() + "/" + etag).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash);
+    }
+}
@@ -0,0 +1,57 @@
+package org.itmo.eventapp.main.storage;
+
+import org.springframework.http.HttpMethod;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Хранилище объектов, в котором MinioService хранит файлы приложения.
+ * Реализация выбирается свойством storage.backend: minio (по умолчанию) или filesystem
+ */
+public interface ObjectStorage {
+
+    boolean bucketExists(String bucket);
+
+    /**
+     * Создает бакет, объекты которого доступны на чтение без подписи
+     */
+    void createBucket(String bucket);
+
+    /**
+     * @param size    размер объекта, -1 если неизвестен
+     * @param headers заголовки, которые хранилище отдает вместе с объектом, например Cache-Control
+     */
+    StoredObject put(String bucket, String key, InputStream stream, long size, String contentType, Map<String, String> headers);
+
+    InputStream get(String bucket, String key);
+
+    Optional<StoredObject> stat(String bucket, String key);
+
+    /**
+     * Объекты бакета, имена которых начинаются с prefix, в порядке имен
+     */
+    List<StoredObject> list(String bucket, String prefix);
+
+    /**
+     * @return etag копии
+     */
+    String copy(String sourceBucket, String sourceKey, String bucket, String key);
+
+    /**
+     * @return ключи, которые не удалось удалить
+     */
+    List<String> delete(String bucket, List<String> keys);
+
+    /**
+     * Ссылка, по которой клиент читает (GET) или записывает (PUT) объект, минуя приложение
+     */
+    String getPresignedUrl(HttpMethod method, String bucket, String key, int expiryInSeconds);
+
+    /**
+     * Постоянная ссылка на объект бакета, доступного на чтение без подписи
+     */
+    String getPublicUrl(String bucket, String key);
+}
@@ -0,0 +1,15 @@
+package org.itmo.eventapp.main.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Метаданные объекта хранилища
+ *
+ * @param etag контрольная сумма содержимого, для одинакового содержимого совпадает
+ */
+public record StoredObject(String key,
+                           long size,
+                           String contentType,
+                           String etag,
+                           LocalDateTime lastModified) {
+}
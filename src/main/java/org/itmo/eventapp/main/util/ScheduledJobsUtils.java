@@ -25,6 +25,9 @@ public class ScheduledJobsUtils {
     @Value(value = "${notifications.cron.delete-period-in-days}")
     private Integer deletePeriodInDays;
 
+    @Value(value = "${notifications.partitions.months-ahead:2}")
+    private Integer partitionMonthsAhead;
+
     @Scheduled(cron = "${notifications.cron.create-notification-job}")
     public void handleTaskDeadline() {
         LocalDateTime deadline = LocalDateTime.now();
@@ -44,4 +47,9 @@ public class ScheduledJobsUtils {
         LocalDateTime beforeTime = LocalDateTime.now().minusDays(deletePeriodInDays);
         notificationService.deleteNotificationsBeforeSentTime(beforeTime);
     }
+
+    @Scheduled(cron = "${notifications.cron.create-partition-job:0 0 0 * * *}")
+    public void createNotificationPartitions() {
+        notificationService.createNotificationPartitions(partitionMonthsAhead);
+    }
 }
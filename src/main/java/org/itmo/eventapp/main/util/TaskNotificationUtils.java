@@ -1,7 +1,6 @@
 package org.itmo.eventapp.main.util;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.itmo.eventapp.main.mail.MailSenderService;
 import org.itmo.eventapp.main.model.entity.Task;
@@ -23,7 +22,6 @@ public class TaskNotificationUtils {
     private String taskFullUrl;
 
     @Async
-    @SneakyThrows
     public void createIncomingTaskNotification(Task task) {
         String notificationTitle = "Новая задача!";
         String notificationDescription = String.format("Вам назначена новая задача - %s в мероприятии %s.",
@@ -45,7 +43,6 @@ public class TaskNotificationUtils {
     }
 
     @Async
-    @SneakyThrows
     public void createOverdueTaskNotification(Task task) {
         String notificationTitle = "Просроченная задача!";
         String notificationDescription = String.format("Прошёл срок исполнения задачи - %s в мероприятии %s.",
@@ -80,7 +77,6 @@ public class TaskNotificationUtils {
     }
 
     @Async
-    @SneakyThrows
     public void createReminderTaskNotification(Task task) {
         String notificationTitle = "Не забудьте выполнить задачу!";
         String notificationDescription = String.format("Не забудьте выполнить задачу - %s в мероприятии %s.",
@@ -0,0 +1,144 @@
+package org.itmo.eventapp.main.util;
+
+import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Построчное чтение первого листа XLSX файла SAX парсером, без построения документа в памяти.
+ * Столбцы находятся по заголовкам первой строки один раз, дальше значения ячеек раскладываются
+ * по заранее вычисленным позициям
+ */
+public final class XlsxRowReader {
+
+    private XlsxRowReader() {
+    }
+
+    public interface RowHandler {
+        /**
+         * @param rowNumber номер строки листа, начиная с 0
+         * @param values    значения столбцов в порядке columns, пустая строка для отсутствующей ячейки
+         */
+        void row(int rowNumber, String[] values);
+    }
+
+    // прерывает разбор листа, когда в заголовке нет нужного столбца
+    private static class MissingColumnsException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Передает handler строки после заголовка, строки с пустыми столбцами columns пропускаются
+     *
+     * @param columns заголовки нужных столбцов
+     * @return false, если в первой строке нет какого-то из столбцов columns
+     */
+    public static boolean read(File file, List<String> columns, RowHandler handler) throws IOException {
+        OPCPackage xlsx;
+        try {
+            xlsx = OPCPackage.open(file, PackageAccess.READ);
+        } catch (OpenXML4JException | InvalidOperationException e) {
+            throw new IOException(e);
+        }
+        try {
+            XSSFReader reader = new XSSFReader(xlsx);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return false;
+            }
+            SheetHandler sheetHandler = new SheetHandler(columns, handler);
+            XMLReader parser = SAXHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), new ReadOnlySharedStringsTable(xlsx),
+                sheetHandler, new DataFormatter(), false));
+            try (InputStream sheet = sheets.next()) {
+                parser.parse(new InputSource(sheet));
+            }
+            return sheetHandler.headerRead;
+        } catch (MissingColumnsException e) {
+            return false;
+        } catch (OpenXML4JException | InvalidOperationException | SAXException | ParserConfigurationException e) {
+            throw new IOException(e);
+        } finally {
+            xlsx.revert();
+        }
+    }
+
+    private static class SheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final List<String> columns;
+        private final RowHandler handler;
+        // позиция в columns по индексу столбца листа
+        private final Map<Integer, Integer> positions = new HashMap<>();
+        private final String[] values;
+        private boolean headerRead;
+
+        SheetHandler(List<String> columns, RowHandler handler) {
+            this.columns = columns;
+            this.handler = handler;
+            this.values = new String[columns.size()];
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(values, "");
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference == null || formattedValue == null) {
+                return;
+            }
+            int column = new CellReference(cellReference).getCol();
+            if (!headerRead) {
+                int position = columns.indexOf(formattedValue.trim());
+                if (position >= 0) {
+                    positions.putIfAbsent(column, position);
+                }
+                return;
+            }
+            Integer position = positions.get(column);
+            if (position != null) {
+                values[position] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerRead) {
+                if (new HashSet<>(positions.values()).size() != columns.size()) {
+                    throw new MissingColumnsException();
+                }
+                headerRead = true;
+                return;
+            }
+            if (Arrays.stream(values).anyMatch(value -> !value.isEmpty())) {
+                handler.row(rowNum, values.clone());
+            }
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+        }
+    }
+}
@@ -0,0 +1,7 @@
+-- object_key is the logical name of a file, blob_key is the object in the bucket holding its content;
+-- copies of a file reference the same blob, which is deleted when no file references it anymore
+alter table file_object add column if not exists blob_key varchar(1024);
+update file_object set blob_key = object_key where blob_key is null;
+alter table file_object alter column blob_key set not null;
+
+create index if not exists file_object_blob_idx on file_object (bucket, blob_key);
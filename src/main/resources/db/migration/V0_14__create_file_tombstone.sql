@@ -0,0 +1,15 @@
+-- owners whose files are deleted in background by FileGarbageCollector; a tombstone is written in the same
+-- transaction that deletes the task or event, so the delete request doesn't wait for the object storage
+create table if not exists file_tombstone
+(
+    id                int generated always as identity primary key not null,
+    owner_type        file_owner_type not null,
+    owner_id          int             not null,
+    attempts          int             not null default 0,
+    created_time      timestamp       not null,
+    next_attempt_time timestamp       not null,
+    last_error        text,
+    unique (owner_type, owner_id)
+);
+
+create index if not exists file_tombstone_next_attempt_idx on file_tombstone (next_attempt_time);
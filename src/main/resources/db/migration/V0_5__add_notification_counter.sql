@@ -0,0 +1,4 @@
+alter table user_t add column if not exists not_seen_notification_count int not null default 0;
+
+update user_t u
+set not_seen_notification_count = (select count(*) from notification n where n.user_id = u.id and n.seen = false);
@@ -0,0 +1 @@
+create index if not exists notification_user_id_sent_time_id_idx on notification (user_id, sent_time desc, id desc);
@@ -0,0 +1,30 @@
+-- notifications with id <= notification_seen_watermark of their owner are seen regardless of notification.seen,
+-- so marking all notifications as seen updates a single user_t row
+alter table user_t add column if not exists notification_seen_watermark int not null default 0;
+
+create or replace function drop_notification_partitions_before(before_time timestamp) returns int as
+$$
+declare
+    partition_name text;
+    dropped        int := 0;
+begin
+    for partition_name in
+        select c.relname
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+                 join pg_class p on p.oid = i.inhparent
+        where p.relname = 'notification'
+          and c.relname ~ '^notification_p[0-9]{4}_[0-9]{2}$'
+        loop
+            if to_date(substring(partition_name from 15), 'YYYY_MM') + interval '1 month' <= before_time then
+                execute format('update user_t u set not_seen_notification_count = greatest(u.not_seen_notification_count - d.cnt, 0) ' ||
+                               'from (select n.user_id, count(*) as cnt from %I n join user_t w on w.id = n.user_id ' ||
+                               'where n.seen = false and n.id > w.notification_seen_watermark group by n.user_id) d ' ||
+                               'where u.id = d.user_id', partition_name);
+                execute format('drop table %I', partition_name);
+                dropped := dropped + 1;
+            end if;
+        end loop;
+    return dropped;
+end;
+$$ language plpgsql;
@@ -0,0 +1,23 @@
+create type email_outbox_status as enum (
+    'PENDING',
+    'SENT',
+    'FAILED'
+);
+create cast (character varying as email_outbox_status) with inout as implicit;
+
+-- emails are written in the same transaction as the business change and sent by EmailOutboxSender workers
+create table if not exists email_outbox
+(
+    id                int generated always as identity primary key not null,
+    recipient         varchar(256)        not null,
+    subject           varchar(256)        not null,
+    body              text                not null,
+    status            email_outbox_status not null default 'PENDING',
+    attempts          int                 not null default 0,
+    created_time      timestamp           not null,
+    next_attempt_time timestamp           not null,
+    sent_time         timestamp,
+    last_error        text
+);
+
+create index if not exists email_outbox_pending_idx on email_outbox (next_attempt_time) where status = 'PENDING';
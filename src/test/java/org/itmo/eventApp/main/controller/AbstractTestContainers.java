@@ -2,10 +2,10 @@ package org.itmo.eventApp.main.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
-import io.minio.MinioClient;
-import io.minio.RemoveBucketArgs;
 import org.itmo.eventapp.main.Main;
 import org.itmo.eventapp.main.model.dto.request.LoginRequest;
+import org.itmo.eventapp.main.storage.ObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,13 +17,16 @@ import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
-import org.testcontainers.containers.MinIOContainer;
+import org.springframework.util.FileSystemUtils;
 import org.testcontainers.containers.PostgreSQLContainer;
 
 import javax.sql.DataSource;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 
@@ -38,6 +41,12 @@ public abstract class AbstractTestContainers {
     @Autowired
     protected MockMvc mockMvc;
 
+    /**
+     * Storage backend of the test profile, storage.backend=filesystem
+     */
+    @Autowired
+    protected ObjectStorage storage;
+
     private final static String POSTGRES_VERSION = "postgres:16.0";
 
     /**
@@ -47,7 +56,7 @@ public abstract class AbstractTestContainers {
 
     /**
      * In tests create bucket only with this name
-     * After each test bucket with this name will be deleted
+     * Before each test objects of this bucket will be deleted
      */
     public final static String MINIO_BUCKET = "test-bucket";
 
@@ -57,16 +66,10 @@ public abstract class AbstractTestContainers {
         .withDatabaseName("test_db")
         .withReuse(true);
 
-    private static final MinIOContainer minioContainer = new MinIOContainer("minio/minio")
-        .withUserName("test_minio_admin")
-        .withPassword("test_minio_admin")
-        .withReuse(true);
-
-    MinioClient minioClient = MinioClient
-        .builder()
-        .endpoint(minioContainer.getS3URL())
-        .credentials(minioContainer.getUserName(), minioContainer.getPassword())
-        .build();
+    /**
+     * Storage and disk cache directories of this test run, deleted when the JVM exits
+     */
+    private static final Path STORAGE_DIRECTORY = createStorageDirectory();
 
     @BeforeAll
     public static void startPostgres() {
@@ -74,21 +77,25 @@ public abstract class AbstractTestContainers {
         System.setProperty("DB_URL", postgreSQLContainer.getJdbcUrl());
         System.setProperty("DB_USERNAME", postgreSQLContainer.getUsername());
         System.setProperty("DB_PASSWORD", postgreSQLContainer.getPassword());
+        System.setProperty("TEST_STORAGE_ROOT", STORAGE_DIRECTORY.resolve("storage").toString());
+        System.setProperty("TEST_STORAGE_CACHE_DIRECTORY", STORAGE_DIRECTORY.resolve("cache").toString());
     }
 
-    @BeforeAll
-    public static void startMinio() {
-        minioContainer.start();
-        System.setProperty("MINIO_URL", minioContainer.getS3URL());
-        System.setProperty("MINIO_ACCESS_KEY", minioContainer.getUserName());
-        System.setProperty("MINIO_SECRET_KEY", minioContainer.getPassword());
+    private static Path createStorageDirectory() {
+        try {
+            Path directory = Files.createTempDirectory("event-app-test-");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> FileSystemUtils.deleteRecursively(directory.toFile())));
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @BeforeEach
     public void cleanUp() throws Exception {
         try {
             executeSqlScript("/sql/clean_tables.sql");
-            minioClient.removeBucket(RemoveBucketArgs.builder().bucket(MINIO_BUCKET).build());
+            storage.delete(MINIO_BUCKET, storage.list(MINIO_BUCKET, "").stream().map(StoredObject::key).toList());
         } catch (Exception ignored) {
 
         }
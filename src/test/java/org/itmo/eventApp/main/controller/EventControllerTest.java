@@ -1,9 +1,8 @@
 package org.itmo.eventApp.main.controller;
 
 
-import io.minio.BucketExistsArgs;
-import io.minio.StatObjectArgs;
-import io.minio.errors.ErrorResponseException;
+import com.jayway.jsonpath.JsonPath;
+import org.itmo.eventapp.main.minio.MinioService;
 import org.itmo.eventapp.main.model.entity.Event;
 import org.itmo.eventapp.main.model.entity.User;
 import org.itmo.eventapp.main.model.entity.UserLoginInfo;
@@ -19,8 +18,11 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.testcontainers.shaded.org.awaitility.Awaitility;
 
+import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
@@ -31,23 +33,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 class EventControllerTest extends AbstractTestContainers {
     private boolean isImageExist(String imageName) {
-        try {
-            minioClient.statObject(StatObjectArgs.builder()
-                .bucket("event-images")
-                .object(imageName).build());
-            return true;
-        } catch (ErrorResponseException e) {
-            return false;
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
-        }
+        return storage.stat("event-images", minioService.getBlobKey("event-images", imageName)).isPresent();
     }
 
     private final EventRepository eventRepository;
+    private final MinioService minioService;
 
     @Autowired
-    public EventControllerTest(EventRepository eventRepository) {
+    public EventControllerTest(EventRepository eventRepository, MinioService minioService) {
         this.eventRepository = eventRepository;
+        this.minioService = minioService;
     }
 
     private void setUpEventData() {
@@ -116,13 +111,58 @@ class EventControllerTest extends AbstractTestContainers {
                 .with(user(getUserLoginInfo())))
             .andExpect(status().isCreated())
             .andExpect(content().string("3"));
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("event-images").build());
+        boolean isBucketExists = storage.bucketExists("event-images");
         boolean isImageExists = isImageExist("3");
         assertThat(isBucketExists).isTrue();
         assertThat(isImageExists).isTrue();
         assertThat(eventRepository.findById(3).isPresent()).isTrue();
     }
 
+    @Test
+    void addEventImageVariants() throws Exception {
+        setUpEventData();
+        MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+        params.add("placeId", "1");
+        params.add("startDate", "2030-03-28T09:00:00");
+        params.add("endDate", "2030-03-28T18:00:00");
+        params.add("title", "itmo-event");
+        params.add("shortDescription", "This is a short description.");
+        params.add("fullDescription", "This is a full description of the event.");
+        params.add("format", "OFFLINE");
+        params.add("status", "PUBLISHED");
+        params.add("registrationStart", "2030-03-01T00:00:00");
+        params.add("registrationEnd", "2030-03-25T23:59:59");
+        params.add("parent", "1");
+        params.add("participantLimit", "50");
+        params.add("participantAgeLowest", "18");
+        params.add("participantAgeHighest", "50");
+        params.add("preparingStart", "2030-03-20T00:00:00");
+        params.add("preparingEnd", "2030-03-27T23:59:59");
+        ClassPathResource imageResource = new ClassPathResource("/images/itmo.jpeg");
+        byte[] content = imageResource.getInputStream().readAllBytes();
+        MockMultipartFile image = new MockMultipartFile("image", "itmo.jpeg", MediaType.IMAGE_JPEG_VALUE, content);
+        mockMvc.perform(MockMvcRequestBuilders.multipart(HttpMethod.POST, "/api/events/activity")
+                .file(image)
+                .params(params)
+                .contentType("multipart/form-data")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isCreated())
+            .andExpect(content().string("3"));
+
+        Awaitility.await().atMost(10, TimeUnit.SECONDS).until(() -> mockMvc.perform(get("/api/events/3")
+                .with(user(getUserLoginInfo())))
+            .andReturn().getResponse().getContentAsString().contains("3_medium_"));
+        String eventJson = mockMvc.perform(get("/api/events/3")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String thumbnailUrl = JsonPath.read(eventJson, "$.imageVariants.thumbnail");
+        mockMvc.perform(get(URI.create(thumbnailUrl)))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("image/jpeg"))
+            .andExpect(header().string("Cache-Control", containsString("immutable")));
+    }
+
     @Test
     void addPlaceNotFoundInvalidEvent() throws Exception {
         setUpEventData();
@@ -384,7 +424,7 @@ class EventControllerTest extends AbstractTestContainers {
                 .with(user(userLoginInfo)))
             .andExpect(status().isCreated())
             .andExpect(content().string("3"));
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("event-images").build());
+        boolean isBucketExists = storage.bucketExists("event-images");
         boolean isObjectExists = isImageExist("3");
         assertThat(isBucketExists).isTrue();
         assertThat(isObjectExists).isTrue();
@@ -473,7 +513,7 @@ class EventControllerTest extends AbstractTestContainers {
                         .with(user(userLoginInfo)))
                 .andExpect(status().isCreated())
                 .andExpect(content().string("3"));
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("event-images").build());
+        boolean isBucketExists = storage.bucketExists("event-images");
         boolean isObjectExists = isImageExist("3");
         assertThat(isBucketExists).isTrue();
         assertThat(isObjectExists).isTrue();
@@ -482,10 +522,9 @@ class EventControllerTest extends AbstractTestContainers {
             .andExpect(status().isNoContent());
         Optional<Event> deletedEvent = eventRepository.findById(3);
         Assertions.assertFalse(deletedEvent.isPresent());
-        isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("event-images").build());
-        isObjectExists = isImageExist("3");
+        isBucketExists = storage.bucketExists("event-images");
         assertThat(isBucketExists).isTrue();
-        assertThat(isObjectExists).isFalse();
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> !isImageExist("3"));
     }
 
     @Test
@@ -556,7 +595,7 @@ class EventControllerTest extends AbstractTestContainers {
                 .with(user(userLoginInfo)))
             .andExpect(status().isCreated())
             .andExpect(content().string("3"));
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("event-images").build());
+        boolean isBucketExists = storage.bucketExists("event-images");
         boolean isObjectExists = isImageExist("3");
         assertThat(isBucketExists).isTrue();
         assertThat(isObjectExists).isTrue();
@@ -565,8 +604,13 @@ class EventControllerTest extends AbstractTestContainers {
                 .with(user(userLoginInfo)))
             .andExpect(status().isCreated())
             .andExpect(content().string("4"));
+        // the copied image references the object of the original image
         boolean isNewImageExists = isImageExist("4");
-        assertThat(isNewImageExists).isTrue();
+        assertThat(isNewImageExists).isFalse();
+        mockMvc.perform(get("/api/files/event-images/4")
+                .with(user(userLoginInfo)))
+            .andExpect(status().isOk())
+            .andExpect(content().bytes(content));
         assertThat(eventRepository.findById(4).isPresent()).isTrue();
     }
 
@@ -0,0 +1,67 @@
+package org.itmo.eventApp.main.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class FileControllerTest extends AbstractTestContainers {
+
+    private void putObject(String object, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (!storage.bucketExists("event-images")) {
+            storage.createBucket("event-images");
+        }
+        storage.put("event-images", object, new ByteArrayInputStream(bytes), bytes.length, "text/plain", Map.of());
+    }
+
+    @Test
+    @WithMockUser(username = "test_mail@test_mail.com")
+    void downloadTest() throws Exception {
+        putObject("1_download", "event image");
+
+        String etag = mockMvc.perform(get("/api/files/event-images/1_download"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(content().contentType("text/plain"))
+            .andExpect(content().string("event image"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/files/event-images/1_download")
+                .header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(username = "test_mail@test_mail.com")
+    void downloadRangeTest() throws Exception {
+        putObject("1_range", "event image");
+
+        mockMvc.perform(get("/api/files/event-images/1_range")
+                .header(HttpHeaders.RANGE, "bytes=6-"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 6-10/11"))
+            .andExpect(content().string("image"));
+
+        mockMvc.perform(get("/api/files/event-images/1_range")
+                .header(HttpHeaders.RANGE, "bytes=100-"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */11"));
+    }
+
+    @Test
+    @WithMockUser(username = "test_mail@test_mail.com")
+    void downloadNotFoundTest() throws Exception {
+        mockMvc.perform(get("/api/files/event-images/1_missing"))
+            .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/files/test-bucket/1_missing"))
+            .andExpect(status().isNotFound());
+    }
+}
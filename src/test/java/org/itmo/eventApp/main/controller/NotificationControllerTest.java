@@ -1,5 +1,6 @@
 package org.itmo.eventApp.main.controller;
 
+import com.jayway.jsonpath.JsonPath;
 import org.itmo.eventapp.main.model.entity.Notification;
 import org.itmo.eventapp.main.model.entity.User;
 import org.itmo.eventapp.main.model.entity.UserLoginInfo;
@@ -11,6 +12,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 
 import java.util.ArrayList;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -53,6 +55,33 @@ class NotificationControllerTest extends AbstractTestContainers {
             .andExpect(jsonPath("$.content[1].id").value("2"));
     }
 
+    @Test
+    @WithMockUser(username = "test_mail@itmo.ru")
+    void getNotificationFeedTest() throws Exception {
+        databaseFilling();
+        String firstPage = mockMvc.perform(get("/api/notifications/feed")
+                .param("size", "1")
+                .param("withTotal", "true")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(1)))
+            .andExpect(jsonPath("$.items[0].id").value("1"))
+            .andExpect(jsonPath("$.total").value("2"))
+            .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+            .andReturn().getResponse().getContentAsString();
+        String cursor = JsonPath.read(firstPage, "$.nextCursor");
+
+        mockMvc.perform(get("/api/notifications/feed")
+                .param("size", "1")
+                .param("cursor", cursor)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items", hasSize(1)))
+            .andExpect(jsonPath("$.items[0].id").value("2"))
+            .andExpect(jsonPath("$.total").doesNotExist())
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
     @Test
     @WithMockUser(username = "test_mail@itmo.ru")
     void allSeenNotificationsTest() throws Exception {
@@ -90,4 +119,30 @@ class NotificationControllerTest extends AbstractTestContainers {
         Notification notification = notificationRepository.findById(1).get();
         assertTrue(notification.isSeen());
     }
+
+    @Test
+    @WithMockUser(username = "test_mail@itmo.ru")
+    void streamNotificationsResumesFromLastEventIdTest() throws Exception {
+        databaseFilling();
+        mockMvc.perform(get("/api/notifications/stream")
+                .header("Last-Event-ID", "1")
+                .with(user(getUserLoginInfo())))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().string(containsString("id:2")))
+            .andExpect(content().string(containsString("event:notSeenCount")));
+    }
+
+    @Test
+    void getEmailOutboxStatsTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        UserLoginInfo userDetails = getUserLoginInfo();
+        userDetails.setLogin("test_mail@itmo.ru");
+        mockMvc.perform(get("/api/notifications/emailOutboxStats")
+                .with(user(userDetails)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.pending").value(0))
+            .andExpect(jsonPath("$.sent").value(0))
+            .andExpect(jsonPath("$.failed").value(0))
+            .andExpect(jsonPath("$.lagInSeconds").isEmpty());
+    }
 }
@@ -0,0 +1,209 @@
+package org.itmo.eventApp.main.controller;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.itmo.eventapp.main.exceptionhandling.ExceptionConst;
+import org.itmo.eventapp.main.model.entity.Participant;
+import org.itmo.eventapp.main.model.entity.User;
+import org.itmo.eventapp.main.model.entity.UserLoginInfo;
+import org.itmo.eventapp.main.repository.ParticipantsRepository;
+import org.itmo.eventapp.main.service.ParticipantsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ParticipantsControllerTest extends AbstractTestContainers {
+
+    private static final List<String> HEADER = List.of("ФИО", "Email", "Телефон");
+
+    @Autowired
+    private ParticipantsService participantsService;
+
+    @Autowired
+    private ParticipantsRepository participantsRepository;
+
+    @BeforeEach
+    void setUpParticipants() {
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_event_role.sql");
+        executeSqlScript("/sql/insert_participants.sql");
+    }
+
+    @AfterEach
+    void restoreSettings() {
+        ReflectionTestUtils.setField(participantsService, "importBatchSize", 500);
+        ReflectionTestUtils.setField(participantsService, "importMaxErrors", 100);
+        ReflectionTestUtils.setField(participantsService, "exportRowWindow", 100);
+        ReflectionTestUtils.setField(participantsService, "participantsRepository", participantsRepository);
+    }
+
+    private UserLoginInfo getUserLoginInfo() {
+        UserLoginInfo userDetails = new UserLoginInfo();
+        userDetails.setLogin("test_mail@itmo.ru");
+        User dummyUser = new User();
+        dummyUser.setId(1);
+        userDetails.setUser(dummyUser);
+        return userDetails;
+    }
+
+    @Test
+    void importReplacesListAndReportsInvalidRowsTest() throws Exception {
+        // every valid row is inserted by its own batch
+        ReflectionTestUtils.setField(participantsService, "importBatchSize", 1);
+        byte[] file = xlsx(HEADER,
+            List.of("Сидоров Сидор", "sidorov@test", "+79990000001"),
+            List.of("Без почты", "", ""),
+            List.of("Неверная почта", "not-an-email", ""),
+            List.of("Смирнов Олег", "smirnov@test", ""));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart(HttpMethod.POST, "/api/events/1/participants")
+                .file(new MockMultipartFile("participantsFile", "participants.xlsx", null, file))
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.participants.length()").value(2))
+            .andExpect(jsonPath("$.participants[0].name").value("Сидоров Сидор"))
+            .andExpect(jsonPath("$.participants[1].name").value("Смирнов Олег"))
+            .andExpect(jsonPath("$.skippedCount").value(2))
+            .andExpect(jsonPath("$.errors[0].row").value(3))
+            .andExpect(jsonPath("$.errors[0].message").value(ExceptionConst.PARTICIPANT_EMAIL_MISSING))
+            .andExpect(jsonPath("$.errors[1].row").value(4))
+            .andExpect(jsonPath("$.errors[1].message").value(ExceptionConst.PARTICIPANT_EMAIL_INVALID));
+    }
+
+    @Test
+    void importReportsNoMoreThanMaxErrorsTest() throws Exception {
+        ReflectionTestUtils.setField(participantsService, "importMaxErrors", 2);
+        byte[] file = xlsx(HEADER,
+            List.of("Первый", "first", ""),
+            List.of("Второй", "second", ""),
+            List.of("Третий", "third", ""));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart(HttpMethod.POST, "/api/events/1/participants")
+                .file(new MockMultipartFile("participantsFile", "participants.xlsx", null, file))
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.participants.length()").value(0))
+            .andExpect(jsonPath("$.skippedCount").value(3))
+            .andExpect(jsonPath("$.errors.length()").value(2));
+    }
+
+    @Test
+    void importWithoutRequiredColumnKeepsOldListTest() throws Exception {
+        byte[] file = xlsx(List.of("ФИО", "Телефон"), List.of("Сидоров Сидор", "+79990000001"));
+
+        mockMvc.perform(MockMvcRequestBuilders.multipart(HttpMethod.POST, "/api/events/1/participants")
+                .file(new MockMultipartFile("participantsFile", "participants.xlsx", null, file))
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isNotAcceptable());
+
+        assertEquals(List.of("Иванов Иван", "Петров Петр"), participantNames());
+    }
+
+    @Test
+    void failedBatchKeepsOldListTest() throws Exception {
+        ReflectionTestUtils.setField(participantsService, "importBatchSize", 1);
+        // the first batch is inserted, the second one fails
+        AtomicInteger inserts = new AtomicInteger();
+        ParticipantsRepository failingRepository = Mockito.mock(ParticipantsRepository.class,
+            AdditionalAnswers.delegatesTo(participantsRepository));
+        Mockito.doAnswer(invocation -> {
+            if (inserts.incrementAndGet() > 1) {
+                throw new IllegalStateException("Insert failed");
+            }
+            participantsRepository.insertAll(invocation.getArgument(0), invocation.getArgument(1),
+                invocation.getArgument(2), invocation.getArgument(3));
+            return null;
+        }).when(failingRepository).insertAll(anyInt(), any(), any(), any());
+        ReflectionTestUtils.setField(participantsService, "participantsRepository", failingRepository);
+        byte[] file = xlsx(HEADER,
+            List.of("Сидоров Сидор", "sidorov@test", ""),
+            List.of("Смирнов Олег", "smirnov@test", ""));
+
+        assertThrows(IllegalStateException.class, () -> participantsService.setParticipants(1,
+            new MockMultipartFile("participantsFile", "participants.xlsx", null, file)));
+
+        assertEquals(List.of("Иванов Иван", "Петров Петр"), participantNames());
+    }
+
+    @Test
+    void exportStreamsParticipantsAsXlsxTest() throws Exception {
+        // rows are flushed from memory one by one while the list is written
+        ReflectionTestUtils.setField(participantsService, "exportRowWindow", 1);
+
+        MvcResult started = mockMvc.perform(get("/api/events/1/participants/file")
+                .with(user(getUserLoginInfo())))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        byte[] file = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"ListOfParticipants.xlsx\""))
+            .andExpect(content().contentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        try (XSSFWorkbook book = new XSSFWorkbook(new ByteArrayInputStream(file))) {
+            Sheet sheet = book.getSheetAt(0);
+            assertEquals("Участники", sheet.getSheetName());
+            assertEquals(2, sheet.getLastRowNum());
+            assertEquals(List.of("ФИО", "Email", "Дополнительная информация", "Мероприятие", "Посещение"), cells(sheet.getRow(0)));
+            assertEquals(List.of("Иванов Иван", "ivanov@test", "+78653452676", "party", "Не присутствовал(-а)"), cells(sheet.getRow(1)));
+            assertEquals(List.of("Петров Петр", "petrov@test", "", "party", "Не присутствовал(-а)"), cells(sheet.getRow(2)));
+        }
+    }
+
+    private static List<String> cells(Row row) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            values.add(row.getCell(i, Row.CREATE_NULL_AS_BLANK).getStringCellValue());
+        }
+        return values;
+    }
+
+    private List<String> participantNames() {
+        return participantsRepository.findAllByEventId(1).stream().map(Participant::getName).sorted().toList();
+    }
+
+    @SafeVarargs
+    private static byte[] xlsx(List<String>... rows) throws IOException {
+        try (XSSFWorkbook book = new XSSFWorkbook()) {
+            Sheet sheet = book.createSheet();
+            for (int i = 0; i < rows.length; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < rows[i].size(); j++) {
+                    row.createCell(j).setCellValue(rows[i].get(j));
+                }
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            book.write(bytes);
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package org.itmo.eventApp.main.controller;
 
-import io.minio.StatObjectArgs;
-import io.minio.errors.ErrorResponseException;
+import com.jayway.jsonpath.JsonPath;
+import org.awaitility.Awaitility;
+import org.itmo.eventapp.main.minio.FileGarbageCollector;
+import org.itmo.eventapp.main.minio.MinioService;
 import org.itmo.eventapp.main.model.entity.*;
 import org.itmo.eventapp.main.model.entity.enums.TaskStatus;
+import org.itmo.eventapp.main.repository.FileTombstoneRepository;
 import org.itmo.eventapp.main.repository.TaskDeadlineTriggerRepository;
 import org.itmo.eventapp.main.repository.TaskReminderTriggerRepository;
 import org.itmo.eventapp.main.repository.TaskRepository;
+import org.itmo.eventapp.main.service.TaskService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class TaskControllerTest extends AbstractTestContainers {
@@ -31,17 +50,20 @@ class TaskControllerTest extends AbstractTestContainers {
     @Autowired
     TaskReminderTriggerRepository taskReminderTriggerRepository;
 
+    @Autowired
+    FileTombstoneRepository fileTombstoneRepository;
+
+    @Autowired
+    FileGarbageCollector fileGarbageCollector;
+
+    @Autowired
+    MinioService minioService;
+
+    @Autowired
+    TaskService taskService;
+
     private boolean isImageExist(String imageName) {
-        try {
-            minioClient.statObject(StatObjectArgs.builder()
-                .bucket("task-objects")
-                .object(imageName).build());
-            return true;
-        } catch (ErrorResponseException e) {
-            return false;
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
-        }
+        return storage.stat("task-objects", minioService.getBlobKey("task-objects", imageName)).isPresent();
     }
 
     private UserLoginInfo getUserLoginInfo() {
@@ -355,7 +377,7 @@ class TaskControllerTest extends AbstractTestContainers {
                         .contentType("multipart/form-data")
                         .with(user(getUserLoginInfo())))
                 .andExpect(status().isOk());
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket("task-objects").build());
+        boolean isBucketExists = storage.bucketExists("task-objects");
         boolean isImageExists = isImageExist("1");
         boolean isImage2Exists = isImageExist("2");
 
@@ -394,6 +416,105 @@ class TaskControllerTest extends AbstractTestContainers {
      */
 
 
+    @Test
+    void taskFileStreamUploadTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        String filesJson = mockMvc.perform(put("/api/tasks/1/files/stream")
+                .param("filename", "report.pdf")
+                .content("report".getBytes())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String filename = JsonPath.read(filesJson, "$[0].filename");
+        Assertions.assertTrue(filename.startsWith("1_report__"));
+        Assertions.assertTrue(isImageExist(filename));
+
+        mockMvc.perform(get("/api/tasks/1/files/summary")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(content().json("{\"count\":1,\"totalSize\":6}"));
+    }
+
+    @Test
+    void taskFileStreamUploadTooLargeTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        ReflectionTestUtils.setField(taskService, "streamUploadMaxSizeInBytes", 4L);
+        try {
+            // the declared length is checked before the body is read
+            mockMvc.perform(put("/api/tasks/1/files/stream")
+                    .param("filename", "report.pdf")
+                    .content("report".getBytes())
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .with(user(getUserLoginInfo())))
+                .andExpect(status().isPayloadTooLarge());
+
+            // a body of unknown length is cut off once it exceeds the limit
+            ResponseStatusException exception = Assertions.assertThrows(ResponseStatusException.class,
+                () -> taskService.addFileStream(1, "report.pdf", new ByteArrayInputStream("report".getBytes()), -1,
+                    MediaType.APPLICATION_OCTET_STREAM_VALUE));
+            Assertions.assertEquals(413, exception.getStatusCode().value());
+        } finally {
+            ReflectionTestUtils.setField(taskService, "streamUploadMaxSizeInBytes", 104857600L);
+        }
+
+        mockMvc.perform(get("/api/tasks/1/files/summary")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(content().json("{\"count\":0,\"totalSize\":0}"));
+    }
+
+    @Test
+    void taskFileUploadIntentTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        String intentsJson = mockMvc.perform(post("/api/tasks/1/files/upload-intents")
+                .content("[\"report.pdf\"]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String filename = JsonPath.read(intentsJson, "$[0].filename");
+        String uploadUrl = JsonPath.read(intentsJson, "$[0].uploadUrl");
+        Assertions.assertTrue(filename.startsWith("1_report__"));
+        Assertions.assertTrue(filename.endsWith(".pdf"));
+
+        mockMvc.perform(post("/api/tasks/1/files/confirm")
+                .content("[\"" + filename + "\"]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isBadRequest());
+
+        mockMvc.perform(put(URI.create(uploadUrl))
+                .content("report"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/tasks/1/files/confirm")
+                .content("[\"" + filename + "\"]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString(filename)));
+        Assertions.assertTrue(isImageExist(filename));
+    }
+
     @Test
     void taskDeleteTest() throws Exception {
         executeSqlScript("/sql/insert_user.sql");
@@ -404,12 +525,51 @@ class TaskControllerTest extends AbstractTestContainers {
         executeSqlScript("/sql/insert_task.sql");
 
         Assertions.assertTrue(taskRepository.findById(1).isPresent());
+        String filesJson = mockMvc.perform(put("/api/tasks/1/files/stream")
+                .param("filename", "report.pdf")
+                .content("report".getBytes())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String filename = JsonPath.read(filesJson, "$[0].filename");
 
         mockMvc.perform(delete("/api/tasks/1")
                 .with(user(getUserLoginInfo())))
             .andExpect(status().is(204));
 
         Assertions.assertFalse(taskRepository.findById(1).isPresent());
+        // files are deleted by the garbage collector after the request
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> !isImageExist(filename));
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> fileTombstoneRepository.count() == 0);
+    }
+
+    @Test
+    void taskFilesWithoutTaskAreSweptTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        String filesJson = mockMvc.perform(put("/api/tasks/1/files/stream")
+                .param("filename", "report.pdf")
+                .content("report".getBytes())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String filename = JsonPath.read(filesJson, "$[0].filename");
+        // left behind by a task deleted through the database cascade
+        storage.put("task-objects", "10_report.pdf", new ByteArrayInputStream("report".getBytes()), 6, "application/pdf", Map.of());
+        storage.put("task-objects", "blob_unreferenced", new ByteArrayInputStream("report".getBytes()), 6, "application/pdf", Map.of());
+
+        fileGarbageCollector.sweep();
+
+        Assertions.assertTrue(isImageExist(filename));
+        Assertions.assertFalse(isImageExist("10_report.pdf"));
+        Assertions.assertFalse(isImageExist("blob_unreferenced"));
     }
 
     @Test
@@ -696,6 +856,99 @@ class TaskControllerTest extends AbstractTestContainers {
     }
 
 
+    @Test
+    void taskCopySharesFilesTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_2.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        String filesJson = mockMvc.perform(put("/api/tasks/1/files/stream")
+                .param("filename", "report.pdf")
+                .content("report".getBytes())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String filename = JsonPath.read(filesJson, "$[0].filename");
+        String blobKey = minioService.getBlobKey("task-objects", filename);
+
+        mockMvc.perform(post("/api/tasks/event/2")
+                .content("[1]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk());
+
+        String copiedFilesJson = mockMvc.perform(get("/api/tasks/2/files")
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String copiedFilename = JsonPath.read(copiedFilesJson, "$[0].filename");
+        Assertions.assertEquals("2_" + filename.substring(2), copiedFilename);
+        // the copy references the object of the original file
+        Assertions.assertEquals(blobKey, minioService.getBlobKey("task-objects", copiedFilename));
+
+        mockMvc.perform(delete("/api/tasks/1/files")
+                .content("[\"" + filename + "\"]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isNoContent());
+        Assertions.assertTrue(storage.stat("task-objects", blobKey).isPresent());
+        mockMvc.perform(get("/api/files/task-objects/" + copiedFilename)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isOk())
+            .andExpect(content().string("report"));
+
+        mockMvc.perform(delete("/api/tasks/2/files")
+                .content("[\"" + copiedFilename + "\"]")
+                .contentType(MediaType.APPLICATION_JSON)
+                .with(user(getUserLoginInfo())))
+            .andExpect(status().isNoContent());
+        Assertions.assertTrue(storage.stat("task-objects", blobKey).isEmpty());
+    }
+
+
+    @Test
+    void taskFilesZipTest() throws Exception {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_event_role_1.sql");
+        executeSqlScript("/sql/insert_task.sql");
+
+        for (String content : List.of("first report", "second report")) {
+            mockMvc.perform(put("/api/tasks/1/files/stream")
+                    .param("filename", "report.pdf")
+                    .content(content.getBytes())
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .with(user(getUserLoginInfo())))
+                .andExpect(status().isOk());
+        }
+
+        MvcResult result = mockMvc.perform(get("/api/tasks/1/files/zip")
+                .with(user(getUserLoginInfo())))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        byte[] zip = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"task-1.zip\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream stream = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = stream.getNextEntry(); entry != null; entry = stream.getNextEntry()) {
+                entries.put(entry.getName(), new String(stream.readAllBytes()));
+            }
+        }
+        Assertions.assertEquals(Set.of("first report", "second report"), Set.copyOf(entries.values()));
+        Assertions.assertEquals(Set.of("report.pdf", "report (2).pdf"), entries.keySet());
+    }
+
+
     @Test
     void taskGetAllInEventTest() throws Exception {
         executeSqlScript("/sql/insert_user.sql");
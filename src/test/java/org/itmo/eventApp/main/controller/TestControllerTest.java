@@ -1,8 +1,5 @@
 package org.itmo.eventApp.main.controller;
 
-import io.minio.BucketExistsArgs;
-import io.minio.StatObjectArgs;
-import io.minio.errors.ErrorResponseException;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpMethod;
 import org.springframework.mock.web.MockMultipartFile;
@@ -48,7 +45,7 @@ class TestControllerTest extends AbstractTestContainers {
                 .contentType("multipart/form-data"))
             .andExpect(status().isOk());
 
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(MINIO_BUCKET).build());
+        boolean isBucketExists = storage.bucketExists(MINIO_BUCKET);
         boolean isObjectExists = isObjectExist(originalFilename);
 
         assertThat(isBucketExists).isTrue();
@@ -76,7 +73,7 @@ class TestControllerTest extends AbstractTestContainers {
                 .contentType("multipart/form-data"))
             .andExpect(status().isOk());
 
-        boolean isBucketExists = minioClient.bucketExists(BucketExistsArgs.builder().bucket(MINIO_BUCKET).build());
+        boolean isBucketExists = storage.bucketExists(MINIO_BUCKET);
         boolean isObjectExists = isObjectExist(originalFilename);
 
         assertThat(isBucketExists).isTrue();
@@ -91,15 +88,6 @@ class TestControllerTest extends AbstractTestContainers {
     }
 
     private boolean isObjectExist(String object) {
-        try {
-            minioClient.statObject(StatObjectArgs.builder()
-                .bucket(AbstractTestContainers.MINIO_BUCKET)
-                .object(object).build());
-            return true;
-        } catch (ErrorResponseException e) {
-            return false;
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage());
-        }
+        return storage.stat(AbstractTestContainers.MINIO_BUCKET, object).isPresent();
     }
 }
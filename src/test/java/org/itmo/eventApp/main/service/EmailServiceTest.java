@@ -6,12 +6,20 @@ import com.icegreen.greenmail.util.ServerSetupTest;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.itmo.eventApp.main.controller.AbstractTestContainers;
+import org.itmo.eventapp.main.mail.EmailOutboxService;
 import org.itmo.eventapp.main.mail.MailSenderService;
+import org.itmo.eventapp.main.mail.SmtpConnectionPool;
+import org.itmo.eventapp.main.model.dto.request.ParticipantBroadcastRequest;
+import org.itmo.eventapp.main.model.dto.response.ParticipantBroadcastResponse;
+import org.itmo.eventapp.main.model.entity.enums.ParticipantBroadcastStatus;
+import org.itmo.eventapp.main.repository.EmailOutboxRepository;
+import org.itmo.eventapp.main.service.ParticipantBroadcastService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.util.FileCopyUtils;
 import org.testcontainers.shaded.org.awaitility.Awaitility;
 
@@ -19,14 +27,29 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class EmailServiceTest extends AbstractTestContainers {
     @Autowired
     private MailSenderService mailSenderService;
 
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private ParticipantBroadcastService participantBroadcastService;
+
+    @Autowired
+    private SmtpConnectionPool smtpConnectionPool;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
     @RegisterExtension
     static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
         .withConfiguration(GreenMailConfiguration.aConfig().withUser("sender@test", "passwd"))
@@ -107,6 +130,84 @@ class EmailServiceTest extends AbstractTestContainers {
         assertEquals(expectedMessage.replace("\r\n", "\n"), receivedMessage.getContent().toString().replace("\r\n", "\n"));
     }
 
+    @Test
+    void testOutboxMessageIsMarkedSent() {
+        mailSenderService.sendApproveRegistrationRequestMessage("user@test", "Tester");
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> emailOutboxService.getStats().sent() == 1);
+
+        EmailOutboxService.Stats stats = emailOutboxService.getStats();
+        assertEquals(0, stats.pending());
+        assertEquals(0, stats.failed());
+        assertNull(stats.lagInSeconds());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    void testTaskMessagesAreMergedIntoDigest() throws IOException, MessagingException {
+        mailSenderService.sendIncomingTaskMessage("user@test", "Tester", "TestEvent", "FirstTask", "Link");
+        mailSenderService.sendIncomingTaskMessage("user@test", "Tester", "TestEvent", "SecondTask", "Link");
+        mailSenderService.sendOverdueTaskMessage("user@test", "Tester", "TestEvent", "ThirdTask", "Link");
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> emailOutboxService.getStats().sent() == 1);
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        MimeMessage receivedMessage = greenMail.getReceivedMessages()[0];
+        assertEquals("Уведомления о задачах (3)", receivedMessage.getSubject());
+        String content = receivedMessage.getContent().toString();
+        assertTrue(content.contains("Новая задача - <a href=\"Link\">FirstTask</a>"));
+        assertTrue(content.contains("Новая задача - <a href=\"Link\">SecondTask</a>"));
+        assertTrue(content.contains("Просроченная задача - <a href=\"Link\">ThirdTask</a>"));
+    }
+
+    @Test
+    void testParticipantBroadcastIsDeliveredToEveryParticipant() throws IOException, MessagingException {
+        executeSqlScript("/sql/insert_place.sql");
+        executeSqlScript("/sql/insert_event.sql");
+        executeSqlScript("/sql/insert_participants.sql");
+
+        ParticipantBroadcastResponse created = participantBroadcastService.createBroadcast(1,
+            new ParticipantBroadcastRequest("Изменение места проведения", "Мероприятие пройдет в аудитории 1404"));
+        assertEquals(2, created.total());
+        assertEquals(ParticipantBroadcastStatus.IN_PROGRESS, created.status());
+
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() ->
+            participantBroadcastService.getBroadcast(1, created.id()).status() == ParticipantBroadcastStatus.COMPLETED);
+
+        ParticipantBroadcastResponse completed = participantBroadcastService.getBroadcast(1, created.id());
+        assertEquals(2, completed.sent());
+        assertEquals(0, completed.pending());
+        assertEquals(0, completed.failed());
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        MimeMessage receivedMessage = greenMail.getReceivedMessages()[0];
+        assertEquals("Изменение места проведения", receivedMessage.getSubject());
+        assertTrue(receivedMessage.getContent().toString().contains("Мероприятие пройдет в аудитории 1404"));
+    }
+
+    @Test
+    void testBorrowTimeoutDoesNotCountAttempt() throws InterruptedException {
+        // all connections of the pool are busy
+        smtpConnectionPool.closeAll();
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(smtpConnectionPool, "connectionPermits");
+        Long borrowTimeout = (Long) ReflectionTestUtils.getField(smtpConnectionPool, "borrowTimeoutMillis");
+        ReflectionTestUtils.setField(smtpConnectionPool, "borrowTimeoutMillis", 50L);
+        int drained = permits.drainPermits();
+        try {
+            mailSenderService.sendApproveRegistrationRequestMessage("user@test", "Tester");
+            Thread.sleep(1000);
+            assertEquals(0, greenMail.getReceivedMessages().length);
+            assertEquals(1, emailOutboxService.getStats().pending());
+        } finally {
+            ReflectionTestUtils.setField(smtpConnectionPool, "borrowTimeoutMillis", borrowTimeout);
+            permits.release(drained);
+        }
+
+        // the email is sent right away, without a backoff for the attempts which did not get a connection
+        Awaitility.await().atMost(5, TimeUnit.SECONDS).until(() -> emailOutboxService.getStats().sent() == 1);
+        assertEquals(1, emailOutboxRepository.findAll().get(0).getAttempts());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
     //Читает файл шаблона и преобразует в String
     private String readMessage(String templatePath) throws IOException {
         Resource resource = new ClassPathResource(templatePath);
@@ -0,0 +1,72 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventapp.main.mail.EmailTemplate;
+import org.itmo.eventapp.main.mail.EmailTemplateRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmailTemplateTest {
+
+    @Test
+    void renderEscapesValuesAndKeepsUnknownPlaceholders() {
+        EmailTemplate template = EmailTemplate.parse("<p>${userName}</p><a href=\"${url}\">${missing}</a>");
+
+        String rendered = template.render(Map.of(
+            "userName", "<b>Tom & \"Jerry\"</b>",
+            "url", "http://localhost/?a=1&b=2"));
+
+        assertEquals("<p>&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;</p>" +
+            "<a href=\"http://localhost/?a=1&amp;b=2\">${missing}</a>", rendered);
+    }
+
+    @Test
+    void renderTemplateWithoutPlaceholders() {
+        EmailTemplate template = EmailTemplate.parse("plain text");
+
+        assertEquals("plain text", template.render(Map.of("userName", "Tester")));
+    }
+
+    @Test
+    void renderInsertsHtmlFieldsWithoutEscaping() {
+        EmailTemplate template = EmailTemplate.parse("<p>${userName}</p><ul>${tasks}</ul>");
+
+        String rendered = template.render(Map.of(
+            "userName", "<Tester>",
+            "tasks", "<li>Task</li>"), Set.of("tasks"));
+
+        assertEquals("<p>&lt;Tester&gt;</p><ul><li>Task</li></ul>", rendered);
+    }
+
+    @Test
+    void registryRendersTaskTemplate() throws IOException {
+        EmailTemplateRegistry registry = new EmailTemplateRegistry();
+
+        String rendered = registry.get("incoming-task-template").render(Map.of(
+            "userName", "Tester",
+            "eventName", "TestEvent",
+            "taskName", "TestTask",
+            "taskLink", "Link"));
+
+        assertEquals(readMessage("email-templates/incoming-task-filled.html").replace("\r\n", "\n"),
+            rendered.replace("\r\n", "\n"));
+        assertThrows(IllegalArgumentException.class, () -> registry.get("unknown-template"));
+    }
+
+    private String readMessage(String templatePath) throws IOException {
+        Resource resource = new ClassPathResource(templatePath);
+        Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8);
+        return FileCopyUtils.copyToString(reader);
+    }
+}
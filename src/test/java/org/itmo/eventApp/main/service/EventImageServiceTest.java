@@ -0,0 +1,85 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventapp.main.minio.MinioService;
+import org.itmo.eventapp.main.model.entity.enums.FileOwnerType;
+import org.itmo.eventapp.main.service.EventImageService;
+import org.itmo.eventapp.main.service.FileObjectService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class EventImageServiceTest {
+
+    private MinioService minioService;
+    private EventImageService eventImageService;
+
+    @BeforeEach
+    void setUp() {
+        minioService = mock(MinioService.class);
+        FileObjectService fileObjectService = mock(FileObjectService.class);
+        when(fileObjectService.getFiles(FileOwnerType.EVENT_IMAGE, 1)).thenReturn(List.of());
+        eventImageService = new EventImageService(minioService, fileObjectService, mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(eventImageService, "jpegQuality", 0.85f);
+        ReflectionTestUtils.setField(eventImageService, "maxPixels", 25_000_000L);
+    }
+
+    @Test
+    void variantsAreCreatedForImage() throws Exception {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB), "png", png);
+        when(minioService.download("event-images", "1")).thenReturn(png.toByteArray());
+
+        ReflectionTestUtils.invokeMethod(eventImageService, "createVariants", 1);
+
+        verify(minioService, times(2)).uploadBytes(any(), eq("image/jpeg"), any(), eq("event-images"), anyString());
+    }
+
+    @Test
+    void imageWithHugeDimensionsIsNotDecoded() throws Exception {
+        byte[] huge = pngHeader(100_000, 100_000);
+
+        // decoding would allocate the whole raster before noticing that the pixel data is missing
+        assertNull(ReflectionTestUtils.invokeMethod(eventImageService, "decode", 1, huge));
+
+        when(minioService.download("event-images", "1")).thenReturn(huge);
+        ReflectionTestUtils.invokeMethod(eventImageService, "createVariants", 1);
+        verify(minioService, never()).uploadBytes(any(), any(), any(), any(), any());
+    }
+
+    // signature and IHDR chunk only: a few bytes declaring an image of width x height pixels
+    private static byte[] pngHeader(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream png = new DataOutputStream(bytes);
+        png.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'});
+
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        ihdr.write(new byte[]{8, 2, 0, 0, 0});
+        CRC32 crc = new CRC32();
+        crc.update(chunk.toByteArray());
+
+        png.writeInt(13);
+        png.write(chunk.toByteArray());
+        png.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+}
@@ -114,7 +114,7 @@ class EventServiceTest {
         when(eventRepository.existsById(eventId)).thenReturn(true);
         when(eventRepository.save(any())).thenReturn(new Event());
         when(placeService.findById(anyInt())).thenReturn(new Place());
-        doNothing().when(minioService).deleteImageByPrefix(anyString(), any());
+        doNothing().when(minioService).deleteByOwners(anyString(), any());
         Event updatedEvent = eventService.updateEvent(eventId, eventRequest);
 
         assertAll(
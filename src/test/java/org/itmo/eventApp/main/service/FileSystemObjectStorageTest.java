@@ -0,0 +1,98 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventapp.main.storage.FileSystemObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemObjectStorageTest {
+
+    private static final String BUCKET = "task-objects";
+
+    @TempDir
+    Path root;
+
+    private FileSystemObjectStorage storage;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new FileSystemObjectStorage(root.toString(), "http://localhost:8080", "secret");
+        storage.createBucket(BUCKET);
+    }
+
+    @Test
+    void storedObjectIsReadBackWithMetadata() throws Exception {
+        StoredObject stored = put("1_report.txt", "report");
+
+        assertEquals(6, stored.size());
+        StoredObject stat = storage.stat(BUCKET, "1_report.txt").orElseThrow();
+        assertEquals("text/plain", stat.contentType());
+        assertEquals(stored.etag(), stat.etag());
+        assertEquals(Map.of("Cache-Control", "no-cache"), storage.getHeaders(BUCKET, "1_report.txt"));
+        try (InputStream stream = storage.get(BUCKET, "1_report.txt")) {
+            assertEquals("report", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(List.of("1_report.txt"), storage.list(BUCKET, "1_").stream().map(StoredObject::key).toList());
+        assertTrue(storage.list(BUCKET, "2_").isEmpty());
+    }
+
+    @Test
+    void copyIsNotChangedByOverwritingSource() throws Exception {
+        put("1_report.txt", "report");
+        storage.copy(BUCKET, "1_report.txt", BUCKET, "2_report.txt");
+
+        put("1_report.txt", "changed report");
+
+        try (InputStream stream = storage.get(BUCKET, "2_report.txt")) {
+            assertEquals("report", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals("text/plain", storage.stat(BUCKET, "2_report.txt").orElseThrow().contentType());
+    }
+
+    @Test
+    void deletedObjectIsGone() {
+        put("1_report.txt", "report");
+
+        assertTrue(storage.delete(BUCKET, List.of("1_report.txt", "1_missing.txt")).isEmpty());
+        assertTrue(storage.stat(BUCKET, "1_report.txt").isEmpty());
+    }
+
+    @Test
+    void presignedUrlIsValidOnlyForItsMethodAndObject() {
+        UriComponents url = UriComponentsBuilder
+                .fromUriString(storage.getPresignedUrl(HttpMethod.PUT, BUCKET, "1_report.txt", 60)).build();
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+
+        assertEquals("/api/storage/task-objects/1_report.txt", url.getPath());
+        assertTrue(storage.isValidSignature(HttpMethod.PUT, BUCKET, "1_report.txt", expires, signature));
+        assertFalse(storage.isValidSignature(HttpMethod.GET, BUCKET, "1_report.txt", expires, signature));
+        assertFalse(storage.isValidSignature(HttpMethod.PUT, BUCKET, "2_report.txt", expires, signature));
+        assertFalse(storage.isValidSignature(HttpMethod.PUT, BUCKET, "1_report.txt", 1, signature));
+    }
+
+    @Test
+    void keyCannotLeaveBucket() {
+        assertThrows(IllegalArgumentException.class, () -> storage.getObjectPath(BUCKET, "../event-images/1"));
+        assertThrows(IllegalArgumentException.class, () -> storage.getObjectPath("../" + BUCKET, "1"));
+    }
+
+    private StoredObject put(String key, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return storage.put(BUCKET, key, new ByteArrayInputStream(bytes), bytes.length, "text/plain",
+                Map.of("Cache-Control", "no-cache"));
+    }
+}
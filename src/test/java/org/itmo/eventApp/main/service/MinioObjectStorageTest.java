@@ -0,0 +1,120 @@
+package org.itmo.eventApp.main.service;
+
+import io.minio.MinioClient;
+import io.minio.ObjectWriteArgs;
+import org.itmo.eventapp.main.minio.MinioObjectStorage;
+import org.itmo.eventapp.main.storage.StoredObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.MinIOContainer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinioObjectStorageTest {
+
+    private static final MinIOContainer minioContainer = new MinIOContainer("minio/minio")
+        .withUserName("test_minio_admin")
+        .withPassword("test_minio_admin")
+        .withReuse(true);
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private MinioObjectStorage storage;
+
+    // the container is reused between runs, so every test gets a bucket of its own
+    private String bucket;
+
+    @BeforeAll
+    static void startMinio() {
+        minioContainer.start();
+    }
+
+    @BeforeEach
+    void setUp() {
+        MinioClient minioClient = MinioClient.builder()
+            .endpoint(minioContainer.getS3URL())
+            .credentials(minioContainer.getUserName(), minioContainer.getPassword())
+            .build();
+        storage = new MinioObjectStorage(minioClient);
+        ReflectionTestUtils.setField(storage, "ip", minioContainer.getHost());
+        ReflectionTestUtils.setField(storage, "minioPort", String.valueOf(minioContainer.getMappedPort(9000)));
+        ReflectionTestUtils.setField(storage, "uploadPartSizeInBytes", (long) ObjectWriteArgs.MIN_MULTIPART_SIZE);
+        storage.init();
+
+        bucket = "test-" + UUID.randomUUID();
+        storage.createBucket(bucket);
+    }
+
+    @Test
+    void createdBucketIsReadableWithoutSignature() throws Exception {
+        put("1_report.txt", "report".getBytes(StandardCharsets.UTF_8), 6);
+
+        HttpResponse<String> response = httpClient.send(
+            HttpRequest.newBuilder(URI.create(storage.getPublicUrl(bucket, "1_report.txt"))).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("report", response.body());
+        assertTrue(storage.bucketExists(bucket));
+    }
+
+    @Test
+    void objectOfUnknownSizeIsUploadedInParts() throws Exception {
+        byte[] content = new byte[2 * ObjectWriteArgs.MIN_MULTIPART_SIZE + 1];
+
+        StoredObject stored = put("1_video.mp4", content, -1);
+
+        assertEquals(content.length, stored.size());
+        // the ETag of a multipart upload ends with the number of its parts
+        assertTrue(stored.etag().endsWith("-3"), stored.etag());
+        try (InputStream stream = storage.get(bucket, "1_video.mp4")) {
+            assertArrayEquals(content, stream.readAllBytes());
+        }
+    }
+
+    @Test
+    void deleteReturnsKeysThatWereNotDeleted() throws Exception {
+        put("1_report.txt", "report".getBytes(StandardCharsets.UTF_8), 6);
+        // MinIO rejects names with ".." segments in the response of the batch instead of the whole request
+        String invalidKey = "1_report/../2_report.txt";
+
+        List<String> failedKeys = storage.delete(bucket, List.of("1_report.txt", invalidKey));
+
+        assertEquals(List.of(invalidKey), failedKeys);
+        assertTrue(storage.stat(bucket, "1_report.txt").isEmpty());
+    }
+
+    @Test
+    void objectIsUploadedByPresignedUrl() throws Exception {
+        String url = storage.getPresignedUrl(HttpMethod.PUT, bucket, "1_report.txt", 60);
+
+        HttpResponse<Void> response = httpClient.send(
+            HttpRequest.newBuilder(URI.create(url)).PUT(HttpRequest.BodyPublishers.ofString("report")).build(),
+            HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(200, response.statusCode());
+        StoredObject stat = storage.stat(bucket, "1_report.txt").orElseThrow();
+        assertEquals(6, stat.size());
+        try (InputStream stream = storage.get(bucket, "1_report.txt")) {
+            assertEquals("report", new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private StoredObject put(String key, byte[] content, long size) {
+        return storage.put(bucket, key, new ByteArrayInputStream(content), size, "application/octet-stream", Map.of());
+    }
+}
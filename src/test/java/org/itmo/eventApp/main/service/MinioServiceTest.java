@@ -0,0 +1,179 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventApp.main.controller.AbstractTestContainers;
+import org.itmo.eventapp.main.minio.MinioService;
+import org.itmo.eventapp.main.service.FileObjectService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MinioServiceTest extends AbstractTestContainers {
+
+    private static final String BUCKET = "event-images";
+
+    @Autowired
+    private MinioService minioService;
+
+    @Autowired
+    private FileObjectService fileObjectService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void deleteWaitsForCopyOfSameFileTest() throws Exception {
+        upload("901", "image");
+        String blobKey = fileObjectService.getBlobKey(BUCKET, "901").orElseThrow();
+
+        // the copy is committed only after the delete below has started
+        runWhileTransactionIsOpen(() -> minioService.copyImagesWithPrefix(BUCKET, BUCKET, "901", "902"),
+            () -> minioService.delete(BUCKET, "901"));
+
+        assertTrue(fileObjectService.getFile(BUCKET, "901").isEmpty());
+        assertEquals(blobKey, fileObjectService.getBlobKey(BUCKET, "902").orElseThrow());
+        assertEquals("image", download("902"));
+    }
+
+    @Test
+    void copyWaitsForDeleteOfSameFileTest() throws Exception {
+        upload("903", "image");
+        String blobKey = fileObjectService.getBlobKey(BUCKET, "903").orElseThrow();
+
+        runWhileTransactionIsOpen(() -> minioService.delete(BUCKET, "903"),
+            () -> minioService.copyImagesWithPrefix(BUCKET, BUCKET, "903", "904"));
+
+        assertTrue(fileObjectService.getFile(BUCKET, "904").isEmpty());
+        assertTrue(storage.stat(BUCKET, blobKey).isEmpty());
+    }
+
+    @Test
+    void copyMadeWhileUploadUrlIsValidKeepsContentTest() {
+        upload("905", "image");
+
+        minioService.getPresignedUploadUrl(BUCKET, "905");
+        minioService.copyImagesWithPrefix(BUCKET, BUCKET, "905", "906");
+        // the client uploads through the presigned URL, bypassing the application
+        byte[] uploaded = "new image".getBytes(StandardCharsets.UTF_8);
+        storage.put(BUCKET, "905", new ByteArrayInputStream(uploaded), uploaded.length, "image/png", Map.of());
+        assertTrue(minioService.confirmUpload(BUCKET, "905"));
+
+        assertEquals("new image", download("905"));
+        assertEquals("image", download("906"));
+    }
+
+    @Test
+    void overwriteKeepsContentOfCopiesTest() {
+        upload("907", "image");
+        minioService.copyImagesWithPrefix(BUCKET, BUCKET, "907", "908");
+        upload("908", "other image");
+        String replacedBlobKey = fileObjectService.getBlobKey(BUCKET, "908").orElseThrow();
+
+        upload("907", "new image");
+        upload("908", "new other image");
+
+        assertEquals("new image", download("907"));
+        assertEquals("new other image", download("908"));
+        // content of the replaced file is deleted once no file references it
+        assertTrue(storage.stat(BUCKET, replacedBlobKey).isEmpty());
+    }
+
+    @Test
+    void slowUploadDoesNotBlockOtherRequestsTest() throws Exception {
+        upload("909", "image");
+        CountDownLatch bodyReceived = new CountDownLatch(1);
+        byte[] body = "new image".getBytes(StandardCharsets.UTF_8);
+        // the client sends the body only after the copy and the delete below have finished
+        InputStream slowBody = new SequenceInputStream(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    bodyReceived.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return -1;
+            }
+        }, new ByteArrayInputStream(body));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> upload = executor.submit(() -> minioService.uploadStream(slowBody, -1, "image/png", BUCKET, "910"));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                minioService.copyImagesWithPrefix(BUCKET, BUCKET, "909", "910");
+                minioService.delete(BUCKET, "909");
+            });
+            bodyReceived.countDown();
+            upload.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(fileObjectService.getFile(BUCKET, "909").isEmpty());
+        assertEquals("new image", download("910"));
+    }
+
+    @Test
+    void copyByPrefixSkipsFilesOfOtherOwnersTest() {
+        upload("911", "image");
+        upload("911_thumbnail_image.jpg", "thumbnail");
+        upload("9110", "other image");
+        upload("9112_thumbnail_image.jpg", "other thumbnail");
+
+        minioService.copyImagesWithPrefix(BUCKET, BUCKET, "911", "912");
+
+        assertEquals("image", download("912"));
+        assertEquals("thumbnail", download("912_thumbnail_image.jpg"));
+        assertTrue(fileObjectService.getFile(BUCKET, "9120").isEmpty());
+        assertTrue(fileObjectService.getFile(BUCKET, "9122_thumbnail_image.jpg").isEmpty());
+    }
+
+    /**
+     * Runs first in a transaction that stays open until second has been waiting for a while, then runs second
+     */
+    private void runWhileTransactionIsOpen(Runnable first, Runnable second) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> transaction = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                first.run();
+                done.countDown();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+
+            second.run();
+            transaction.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void upload(String object, String content) {
+        minioService.uploadBytes(content.getBytes(StandardCharsets.UTF_8), "image/png", Map.of(), BUCKET, object);
+    }
+
+    private String download(String object) {
+        return new String(minioService.download(BUCKET, object), StandardCharsets.UTF_8);
+    }
+}
@@ -7,9 +7,19 @@ import org.itmo.eventapp.main.repository.NotificationRepository;
 import org.itmo.eventapp.main.service.NotificationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +31,12 @@ class NotificationServiceTest extends AbstractTestContainers {
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private void databaseFilling() {
         executeSqlScript("/sql/insert_user.sql");
         executeSqlScript("/sql/insert_user_2.sql");
@@ -116,4 +132,112 @@ class NotificationServiceTest extends AbstractTestContainers {
         assertTrue(notificationRepository.findById(notificationId).isEmpty());
 
     }
+
+    @Test
+    void notSeenCountFollowsNotificationChangesTest() {
+        databaseFilling();
+
+        Integer userId = 1;
+
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        notificationService.createNotification("TestTitle", "TestDescription", userId, "http://localhost:8080/task/1");
+        assertEquals(2L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        notificationService.updateToSeen(1, userId);
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        notificationService.updateSeenToAllByUserId(userId, 0, 1);
+        assertEquals(0L, notificationService.getCountNotSeenNotificationByUserId(userId));
+    }
+
+    @Test
+    void notSeenCountIgnoresRolledBackChangesTest() {
+        databaseFilling();
+
+        Integer userId = 1;
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            notificationService.createNotification("TestTitle", "TestDescription", userId, "http://localhost:8080/task/1");
+            assertEquals(2L, notificationService.getCountNotSeenNotificationByUserId(userId));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+    }
+
+    @Test
+    void deleteNotificationsAcrossPartitionsTest() {
+        executeSqlScript("/sql/insert_user.sql");
+        executeSqlScript("/sql/insert_user_2.sql");
+        executeSqlScript("/sql/insert_partitioned_notifications.sql");
+        // several chunks are needed for the rows of notification_default and the rest of February
+        ReflectionTestUtils.setField(notificationService, "deleteChunkSize", 2);
+
+        notificationService.deleteNotificationsBeforeSentTime(LocalDateTime.of(2024, 2, 15, 0, 0));
+
+        List<String> remaining = jdbcTemplate.queryForList("select title from notification order by id", String.class);
+        assertEquals(List.of("February2", "Current1"), remaining);
+        assertNull(jdbcTemplate.queryForObject("select cast(to_regclass('notification_p2024_01') as text)", String.class));
+        assertNotNull(jdbcTemplate.queryForObject("select cast(to_regclass('notification_p2024_02') as text)", String.class));
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(1));
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(2));
+    }
+
+    @Test
+    void seenAllMarksNotificationsThroughWatermarkTest() {
+        databaseFilling();
+
+        Integer userId = 1;
+        notificationService.createNotification("TestTitle", "TestDescription", userId, "http://localhost:8080/task/1");
+
+        notificationService.updateSeenToAllByUserId(userId, 0, 10);
+
+        assertTrue(notificationRepository.findById(5).orElseThrow().isSeen());
+        // notification rows are not touched, the watermark of the owner covers them
+        assertEquals(Boolean.FALSE, jdbcTemplate.queryForObject("select seen from notification where id = 5", Boolean.class));
+        assertFalse(notificationRepository.findById(3).orElseThrow().isSeen());
+
+        notificationService.createNotification("TestTitle", "TestDescription", userId, "http://localhost:8080/task/1");
+        assertFalse(notificationRepository.findById(6).orElseThrow().isSeen());
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        // already seen through the watermark, the counter is not decreased twice
+        assertTrue(notificationService.updateToSeen(5, userId).isSeen());
+        assertEquals(1L, notificationService.getCountNotSeenNotificationByUserId(userId));
+
+        notificationService.updateToSeen(6, userId);
+        assertEquals(0L, notificationService.getCountNotSeenNotificationByUserId(userId));
+    }
+
+    @Test
+    void seenAllWaitsForNotificationInProgressTest() throws Exception {
+        databaseFilling();
+
+        Integer userId = 1;
+        CountDownLatch created = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> creation = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                notificationService.createNotification("TestTitle", "TestDescription", userId, "http://localhost:8080/task/1");
+                created.countDown();
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(created.await(10, TimeUnit.SECONDS));
+
+            // waits for the notification above to be committed and marks it as seen too
+            notificationService.updateSeenToAllByUserId(userId, 0, 10);
+            creation.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(notificationRepository.findById(5).orElseThrow().isSeen());
+        assertEquals(0L, notificationService.getCountNotSeenNotificationByUserId(userId));
+    }
 }
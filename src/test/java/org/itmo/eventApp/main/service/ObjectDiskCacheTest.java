@@ -0,0 +1,130 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventapp.main.storage.FileSystemObjectStorage;
+import org.itmo.eventapp.main.storage.ObjectDiskCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectDiskCacheTest {
+
+    private static final String BUCKET = "event-images";
+
+    @TempDir
+    Path root;
+
+    private FileSystemObjectStorage storage;
+    private ObjectDiskCache cache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage = new FileSystemObjectStorage(root.resolve("storage").toString(), "http://localhost:8080", "secret");
+        storage.createBucket(BUCKET);
+        cache = new ObjectDiskCache(storage);
+        ReflectionTestUtils.setField(cache, "directory", root.resolve("cache").toString());
+        ReflectionTestUtils.setField(cache, "maxSizeInBytes", 10L);
+        ReflectionTestUtils.setField(cache, "maxObjectSizeInBytes", 8L);
+        ReflectionTestUtils.setField(cache, "revalidateAfterInSeconds", 0);
+        cache.init();
+    }
+
+    @Test
+    void objectIsDownloadedOnceWhileEtagMatches() throws Exception {
+        put("1", "image");
+
+        ObjectDiskCache.CachedObject first = cache.get(BUCKET, "1").orElseThrow();
+        ObjectDiskCache.CachedObject second = cache.get(BUCKET, "1").orElseThrow();
+
+        assertEquals("image", Files.readString(first.path()));
+        assertEquals(first, second);
+        ObjectDiskCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.hits());
+        assertEquals(5, stats.sizeInBytes());
+    }
+
+    @Test
+    void changedObjectIsDownloadedAgain() throws Exception {
+        put("1", "image");
+        cache.get(BUCKET, "1");
+
+        put("1", "new");
+
+        assertEquals("new", Files.readString(cache.get(BUCKET, "1").orElseThrow().path()));
+        assertEquals(3, cache.getStats().sizeInBytes());
+    }
+
+    @Test
+    void reloadDoesNotReplaceFileOpenedByReader() throws Exception {
+        put("1", "image");
+        Path old = cache.get(BUCKET, "1").orElseThrow().path();
+
+        try (FileChannel reader = FileChannel.open(old)) {
+            put("1", "changed");
+            Path reloaded = cache.get(BUCKET, "1").orElseThrow().path();
+
+            assertNotEquals(old, reloaded);
+            assertEquals("changed", Files.readString(reloaded));
+            assertFalse(Files.exists(old));
+            // the reader still gets the whole previous version
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            reader.read(buffer, 0);
+            assertEquals("image", new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void leastRecentlyReadObjectIsEvicted() {
+        put("1", "aaaa");
+        put("2", "bbbb");
+        put("3", "cccc");
+        Path first = cache.get(BUCKET, "1").orElseThrow().path();
+        Path second = cache.get(BUCKET, "2").orElseThrow().path();
+        cache.get(BUCKET, "1");
+
+        cache.get(BUCKET, "3");
+
+        assertTrue(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertEquals(8, cache.getStats().sizeInBytes());
+    }
+
+    @Test
+    void largeObjectIsNotCached() {
+        put("1", "large image");
+
+        ObjectDiskCache.CachedObject cached = cache.get(BUCKET, "1").orElseThrow();
+
+        assertNull(cached.path());
+        assertEquals(11, cached.size());
+        assertEquals(0, cache.getStats().size());
+    }
+
+    @Test
+    void deletedObjectIsNotFound() {
+        put("1", "image");
+        Path path = cache.get(BUCKET, "1").orElseThrow().path();
+
+        storage.delete(BUCKET, List.of("1"));
+
+        assertTrue(cache.get(BUCKET, "1").isEmpty());
+        assertFalse(Files.exists(path));
+    }
+
+    private void put(String key, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        storage.put(BUCKET, key, new ByteArrayInputStream(bytes), bytes.length, "image/png", Map.of());
+    }
+}
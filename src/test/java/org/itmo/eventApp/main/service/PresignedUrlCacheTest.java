@@ -0,0 +1,73 @@
+package org.itmo.eventApp.main.service;
+
+import org.itmo.eventapp.main.minio.PresignedUrlCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PresignedUrlCacheTest {
+
+    private PresignedUrlCache cache;
+    private final AtomicInteger signed = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cache = new PresignedUrlCache();
+        ReflectionTestUtils.setField(cache, "expiryInSeconds", 86400);
+        ReflectionTestUtils.setField(cache, "refreshBeforeExpiryInSeconds", 3600);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+    }
+
+    @Test
+    void urlIsSignedOnceAndReused() {
+        String first = cache.get("task-objects", "1_file", this::sign);
+        String second = cache.get("task-objects", "1_file", this::sign);
+
+        assertEquals("url-1", first);
+        assertEquals("url-1", second);
+        assertEquals(1, signed.get());
+        PresignedUrlCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void invalidatedUrlIsSignedAgain() {
+        cache.get("task-objects", "1_file", this::sign);
+        cache.invalidate("task-objects", "1_file");
+
+        assertEquals("url-2", cache.get("task-objects", "1_file", this::sign));
+    }
+
+    @Test
+    void urlIsSignedAgainShortlyBeforeExpiry() {
+        ReflectionTestUtils.setField(cache, "refreshBeforeExpiryInSeconds", 86400);
+        cache.get("task-objects", "1_file", this::sign);
+
+        assertEquals("url-2", cache.get("task-objects", "1_file", this::sign));
+    }
+
+    @Test
+    void leastRecentlyRequestedUrlIsEvicted() {
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        cache.get("task-objects", "1_file", this::sign);
+        cache.get("task-objects", "2_file", this::sign);
+        cache.get("task-objects", "1_file", this::sign);
+
+        cache.get("task-objects", "3_file", this::sign);
+
+        assertEquals(2, cache.getStats().size());
+        assertEquals("url-1", cache.get("task-objects", "1_file", this::sign));
+        assertEquals("url-3", cache.get("task-objects", "3_file", this::sign));
+        assertEquals("url-4", cache.get("task-objects", "2_file", this::sign));
+    }
+
+    private String sign() {
+        return "url-" + signed.incrementAndGet();
+    }
+}
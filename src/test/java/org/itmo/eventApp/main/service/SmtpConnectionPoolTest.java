@@ -0,0 +1,128 @@
+package org.itmo.eventApp.main.service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetup;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.itmo.eventapp.main.mail.SmtpConnectionPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SmtpConnectionPoolTest {
+
+    // not the port of the test profile, so this test does not depend on the application context
+    private static final int SMTP_PORT = 3026;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(new ServerSetup(SMTP_PORT, "127.0.0.1", ServerSetup.PROTOCOL_SMTP))
+        .withConfiguration(GreenMailConfiguration.aConfig().withUser("sender@test", "passwd"))
+        .withPerMethodLifecycle(true);
+
+    private JavaMailSenderImpl mailSender;
+    private SmtpConnectionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(SMTP_PORT);
+        mailSender.setUsername("sender@test");
+        mailSender.setPassword("passwd");
+
+        pool = new SmtpConnectionPool(mailSender);
+        ReflectionTestUtils.setField(pool, "maxConnections", 1);
+        ReflectionTestUtils.setField(pool, "messagesPerSecond", 0.0);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 100);
+        ReflectionTestUtils.setField(pool, "idleCheckAfterMillis", 0L);
+        ReflectionTestUtils.setField(pool, "maxIdleMillis", 60000L);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMillis", 200L);
+        pool.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.closeAll();
+    }
+
+    @Test
+    void connectionIsReusedBetweenBatches() throws Exception {
+        assertTrue(pool.send(List.of(message("first@test"), message("second@test"))).isEmpty());
+        Object first = idleTransports().peekFirst();
+
+        assertTrue(pool.send(List.of(message("third@test"))).isEmpty());
+
+        assertEquals(3, greenMail.getReceivedMessages().length);
+        assertEquals(1, idleTransports().size());
+        assertSame(first, idleTransports().peekFirst());
+    }
+
+    @Test
+    void deadConnectionIsReplaced() throws Exception {
+        pool.send(List.of(message("first@test")));
+        Object dead = idleTransports().peekFirst();
+
+        // the server drops all connections, the pooled one fails the NOOP check
+        greenMail.stop();
+        greenMail.start();
+
+        assertTrue(pool.send(List.of(message("second@test"))).isEmpty());
+
+        assertEquals(1, greenMail.getReceivedMessages().length);
+        assertNotSame(dead, idleTransports().peekFirst());
+        assertEquals(0, connectionPermits().availablePermits());
+    }
+
+    @Test
+    void idleConnectionIsEvicted() throws Exception {
+        pool.send(List.of(message("first@test")));
+        ReflectionTestUtils.setField(pool, "maxIdleMillis", -1L);
+
+        pool.evictIdleTransports();
+
+        assertTrue(idleTransports().isEmpty());
+        assertEquals(1, connectionPermits().availablePermits());
+    }
+
+    @Test
+    void borrowTimesOutWhenAllConnectionsAreBusy() throws Exception {
+        // the only connection is taken by another sender
+        Object busy = ReflectionTestUtils.invokeMethod(pool, "borrow");
+        assertNotNull(busy);
+
+        assertThrows(SmtpConnectionPool.BorrowTimeoutException.class, () -> pool.send(List.of(message("first@test"))));
+        assertEquals(0, greenMail.getReceivedMessages().length);
+
+        ReflectionTestUtils.invokeMethod(pool, "release", busy);
+        assertTrue(pool.send(List.of(message("first@test"))).isEmpty());
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    private MimeMessage message(String recipient) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        message.setFrom("sender@test");
+        message.setRecipients(Message.RecipientType.TO, recipient);
+        message.setSubject("Subject");
+        message.setText("Text");
+        return message;
+    }
+
+    private Deque<?> idleTransports() {
+        return (Deque<?>) ReflectionTestUtils.getField(pool, "idleTransports");
+    }
+
+    private Semaphore connectionPermits() {
+        return (Semaphore) ReflectionTestUtils.getField(pool, "connectionPermits");
+    }
+}
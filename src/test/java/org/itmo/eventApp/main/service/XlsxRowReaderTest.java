@@ -0,0 +1,88 @@
+package org.itmo.eventApp.main.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.itmo.eventapp.main.util.XlsxRowReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxRowReaderTest {
+
+    private static final List<String> COLUMNS = List.of("ФИО", "Email", "Телефон");
+
+    @TempDir
+    Path root;
+
+    @Test
+    void rowsAreReadByHeaderColumns() throws Exception {
+        File file = write(sheet -> {
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Телефон");
+            header.createCell(1).setCellValue("Комментарий");
+            header.createCell(2).setCellValue("ФИО");
+            header.createCell(3).setCellValue("Email");
+            Row first = sheet.createRow(1);
+            first.createCell(0).setCellValue(79001234567d);
+            first.createCell(1).setCellValue("skipped");
+            first.createCell(2).setCellValue("Иванов Иван");
+            first.createCell(3).setCellValue("ivanov@test");
+            // blank rows are skipped
+            sheet.createRow(2).createCell(1).setCellValue("skipped");
+            Row second = sheet.createRow(3);
+            second.createCell(2).setCellValue("Петров Петр");
+        });
+        List<String> rows = new ArrayList<>();
+
+        boolean read = XlsxRowReader.read(file, COLUMNS, (rowNumber, values) -> rows.add(rowNumber + ":" + String.join("|", values)));
+
+        assertTrue(read);
+        assertEquals(List.of("1:Иванов Иван|ivanov@test|79001234567", "3:Петров Петр||"), rows);
+    }
+
+    @Test
+    void sheetWithoutColumnIsRejected() throws Exception {
+        File file = write(sheet -> {
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ФИО");
+            header.createCell(1).setCellValue("Email");
+            sheet.createRow(1).createCell(0).setCellValue("Иванов Иван");
+        });
+        List<String[]> rows = new ArrayList<>();
+
+        assertFalse(XlsxRowReader.read(file, COLUMNS, (rowNumber, values) -> rows.add(values)));
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    void notXlsxFileFails() throws Exception {
+        File file = Files.writeString(root.resolve("participants.xlsx"), "ФИО;Email;Телефон").toFile();
+
+        assertThrows(IOException.class, () -> XlsxRowReader.read(file, COLUMNS, (rowNumber, values) -> {
+        }));
+    }
+
+    private interface SheetWriter {
+        void write(Sheet sheet);
+    }
+
+    private File write(SheetWriter writer) throws IOException {
+        File file = root.resolve("participants.xlsx").toFile();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream output = new FileOutputStream(file)) {
+            writer.write(workbook.createSheet());
+            workbook.write(output);
+        }
+        return file;
+    }
+}
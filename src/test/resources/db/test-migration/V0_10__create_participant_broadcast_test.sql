@@ -0,0 +1,36 @@
+create type participant_broadcast_status as enum (
+    'IN_PROGRESS',
+    'COMPLETED'
+);
+create cast (character varying as participant_broadcast_status) with inout as implicit;
+
+create table if not exists participant_broadcast
+(
+    id             int generated always as identity primary key not null,
+    event_id       int references event (id) on delete cascade not null,
+    subject        varchar(256)                 not null,
+    message        text                         not null,
+    status         participant_broadcast_status not null,
+    total          int                          not null,
+    created_time   timestamp                    not null,
+    completed_time timestamp
+);
+
+-- one row per participant, recipient and name are copied so that reimporting the participant list does not lose the state
+create table if not exists participant_broadcast_delivery
+(
+    id                int generated always as identity primary key not null,
+    broadcast_id      int references participant_broadcast (id) on delete cascade not null,
+    participant_id    int references participant (id) on delete set null,
+    recipient         varchar(256)        not null,
+    participant_name  varchar(256)        not null,
+    status            email_outbox_status not null default 'PENDING',
+    attempts          int                 not null default 0,
+    next_attempt_time timestamp           not null,
+    sent_time         timestamp,
+    last_error        text
+);
+
+create index if not exists participant_broadcast_delivery_pending_idx on participant_broadcast_delivery (next_attempt_time) where status = 'PENDING';
+create index if not exists participant_broadcast_delivery_broadcast_id_idx on participant_broadcast_delivery (broadcast_id, status);
+create index if not exists participant_broadcast_delivery_participant_id_idx on participant_broadcast_delivery (participant_id);
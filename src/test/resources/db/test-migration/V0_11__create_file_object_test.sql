@@ -0,0 +1,24 @@
+create type file_owner_type as enum (
+    'TASK',
+    'EVENT_IMAGE',
+    'EVENT_PARTICIPANTS'
+);
+create cast (character varying as file_owner_type) with inout as implicit;
+
+-- metadata of objects stored in MinIO, written by MinioService next to every upload, copy and delete;
+-- drift between the table and the buckets is repaired by FileObjectReconciler
+create table if not exists file_object
+(
+    id           int generated always as identity primary key not null,
+    owner_type   file_owner_type not null,
+    owner_id     int             not null,
+    bucket       varchar(64)     not null,
+    object_key   varchar(1024)   not null,
+    size         bigint          not null,
+    content_type varchar(256),
+    checksum     varchar(128),
+    created_time timestamp       not null,
+    unique (bucket, object_key)
+);
+
+create index if not exists file_object_owner_idx on file_object (owner_type, owner_id);
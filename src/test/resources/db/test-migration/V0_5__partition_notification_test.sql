@@ -0,0 +1,87 @@
+-- notification is partitioned by sent_time with monthly partitions named notification_pYYYY_MM,
+-- rows outside of existing partitions go to notification_default
+
+-- creates monthly partitions from the given month up to months_ahead months after the current one,
+-- rows of these months already stored in notification_default are moved to the new partitions
+create or replace function create_notification_partitions(from_month date, months_ahead int) returns int as
+$$
+declare
+    month_start    date := date_trunc('month', from_month);
+    last_month     date := date_trunc('month', current_date) + make_interval(months => months_ahead);
+    partition_name text;
+    created        int  := 0;
+begin
+    while month_start <= last_month
+        loop
+            partition_name := 'notification_p' || to_char(month_start, 'YYYY_MM');
+            if to_regclass(partition_name) is null then
+                execute format('create table %I (like notification including defaults)', partition_name);
+                execute format('with moved as (delete from notification_default where sent_time >= %L and sent_time < %L returning *) ' ||
+                               'insert into %I select * from moved',
+                               month_start, month_start + interval '1 month', partition_name);
+                execute format('alter table notification attach partition %I for values from (%L) to (%L)',
+                               partition_name, month_start, month_start + interval '1 month');
+                created := created + 1;
+            end if;
+            month_start := month_start + interval '1 month';
+        end loop;
+    return created;
+end;
+$$ language plpgsql;
+
+-- drops monthly partitions which contain only notifications sent before given time,
+-- not seen counters of the owners are decreased in the same transaction
+create or replace function drop_notification_partitions_before(before_time timestamp) returns int as
+$$
+declare
+    partition_name text;
+    dropped        int := 0;
+begin
+    for partition_name in
+        select c.relname
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+                 join pg_class p on p.oid = i.inhparent
+        where p.relname = 'notification'
+          and c.relname ~ '^notification_p[0-9]{4}_[0-9]{2}$'
+        loop
+            if to_date(substring(partition_name from 15), 'YYYY_MM') + interval '1 month' <= before_time then
+                execute format('update user_t u set not_seen_notification_count = greatest(u.not_seen_notification_count - d.cnt, 0) ' ||
+                               'from (select user_id, count(*) as cnt from %I where seen = false group by user_id) d ' ||
+                               'where u.id = d.user_id', partition_name);
+                execute format('drop table %I', partition_name);
+                dropped := dropped + 1;
+            end if;
+        end loop;
+    return dropped;
+end;
+$$ language plpgsql;
+
+alter table notification rename to notification_unpartitioned;
+alter sequence notification_id_seq rename to notification_unpartitioned_id_seq;
+
+create sequence notification_id_seq as int;
+select setval('notification_id_seq', coalesce((select max(id) from notification_unpartitioned), 0) + 1, false);
+
+create table notification
+(
+    id          int       not null default nextval('notification_id_seq'),
+    user_id     int       not null references user_t (id),
+    title       varchar(256) not null,
+    description text      not null,
+    seen        boolean   not null default FALSE,
+    sent_time   timestamp not null,
+    link        text,
+    primary key (id, sent_time)
+) partition by range (sent_time);
+alter sequence notification_id_seq owned by notification.id;
+
+create table notification_default partition of notification default;
+
+select create_notification_partitions(coalesce((select min(sent_time) from notification_unpartitioned), current_date)::date, 2);
+
+insert into notification (id, user_id, title, description, seen, sent_time, link)
+select id, user_id, title, description, seen, sent_time, link
+from notification_unpartitioned;
+
+drop table notification_unpartitioned;
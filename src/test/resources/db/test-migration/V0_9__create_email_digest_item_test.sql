@@ -0,0 +1,21 @@
+create type email_digest_item_type as enum (
+    'INCOMING_TASK',
+    'OVERDUE_TASK',
+    'REMINDER_TASK'
+);
+create cast (character varying as email_digest_item_type) with inout as implicit;
+
+-- task emails wait here for the coalescing window and are merged into one digest email per recipient
+create table if not exists email_digest_item
+(
+    id           int generated always as identity primary key not null,
+    recipient    varchar(256)           not null,
+    user_name    varchar(256)           not null,
+    type         email_digest_item_type not null,
+    event_name   varchar(256)           not null,
+    task_name    varchar(256)           not null,
+    task_link    text                   not null,
+    created_time timestamp              not null
+);
+
+create index if not exists email_digest_item_recipient_idx on email_digest_item (recipient);
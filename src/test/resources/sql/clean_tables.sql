@@ -5,6 +5,7 @@ delete from role where id > 4;              -- Number of basic roles = 4
 delete from privilege where id > 44;        -- Number of basic privilege = 44
 truncate table task cascade;
 truncate table event_role cascade;
+truncate table participant_broadcast cascade;
 truncate table participant cascade;
 truncate table event cascade;
 truncate table place cascade;
@@ -13,8 +14,18 @@ truncate table user_login_info cascade;
 truncate table user_t cascade;
 truncate table user_notification_info cascade;
 truncate table registration_request cascade;
+truncate table email_outbox;
+truncate table email_digest_item;
+truncate table file_object;
+truncate table file_tombstone;
 
 -- reset id sequences
+alter sequence email_outbox_id_seq restart with 1;
+alter sequence email_digest_item_id_seq restart with 1;
+alter sequence participant_broadcast_id_seq restart with 1;
+alter sequence participant_broadcast_delivery_id_seq restart with 1;
+alter sequence file_object_id_seq restart with 1;
+alter sequence file_tombstone_id_seq restart with 1;
 alter sequence task_id_seq restart with 1;
 alter sequence task_deadline_trigger_id_seq restart with 1;
 alter sequence task_reminder_trigger_id_seq restart with 1;
@@ -48,4 +48,7 @@ values (2,
         'TestDescription4',
         true,
         '2024-01-01 12:34:56.789121 +00:00',
-        'http://localhost:8080/task/2');
\ No newline at end of file
+        'http://localhost:8080/task/2');
+
+-- keep maintained not seen counters in sync with inserted rows
+update user_t set not_seen_notification_count = 1 where id in (1, 2);
@@ -0,0 +1,6 @@
+-- assumed, that event already exists.
+-- You can use insert_event.sql for this purpose
+
+insert into participant (name, email, additional_info, visited, event_id)
+values ('Иванов Иван', 'ivanov@test', '+78653452676', false, 1),
+       ('Петров Петр', 'petrov@test', null, false, 1);
@@ -0,0 +1,18 @@
+-- monthly partitions of January and February 2024, rows of 2023 stay in notification_default
+create table if not exists notification_p2024_01 partition of notification for values from ('2024-01-01') to ('2024-02-01');
+create table if not exists notification_p2024_02 partition of notification for values from ('2024-02-01') to ('2024-03-01');
+
+insert into notification (user_id, title, description, seen, sent_time, link)
+values (1, 'January1', 'TestDescription', false, '2024-01-05 10:00:00', 'http://localhost:8080/task/1'),
+       (1, 'January2', 'TestDescription', true, '2024-01-06 10:00:00', 'http://localhost:8080/task/1'),
+       (2, 'January3', 'TestDescription', false, '2024-01-07 10:00:00', 'http://localhost:8080/task/2'),
+       (1, 'February1', 'TestDescription', false, '2024-02-01 10:00:00', 'http://localhost:8080/task/1'),
+       (2, 'February2', 'TestDescription', false, '2024-02-20 10:00:00', 'http://localhost:8080/task/2'),
+       (1, 'Default1', 'TestDescription', false, '2023-06-01 10:00:00', 'http://localhost:8080/task/1'),
+       (2, 'Default2', 'TestDescription', false, '2023-06-02 10:00:00', 'http://localhost:8080/task/2'),
+       (2, 'Default3', 'TestDescription', true, '2023-06-03 10:00:00', 'http://localhost:8080/task/2'),
+       (1, 'Current1', 'TestDescription', false, now(), 'http://localhost:8080/task/1');
+
+-- the first notification of user 1 is seen through the watermark
+update user_t set notification_seen_watermark = 1 where id = 1;
+update user_t set not_seen_notification_count = 3 where id in (1, 2);